@@ -0,0 +1,165 @@
+/*
+ * File: FormatBenchmark.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-17
+ */
+package model.parser;
+
+import model.srurl.Format;
+import model.srurl.SRAPIChannel;
+import model.srurl.SRAPITableau;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the XML and JSON formats of the SR API, by size of the
+ * response (plain and gzip compressed, as sent on the wire when
+ * compression is negotiated) and by time and allocated bytes to parse it.
+ * Downloads the tableau of a channel and the list of channels. If the API
+ * can't be reached, generated documents are used instead.
+ * Not a unit test, run with the main method.
+ */
+public class FormatBenchmark {
+
+    private static final int CHANNEL_ID = 164;
+    private static final int WARMUP_ROUNDS = 50;
+    private static final int ROUNDS = 200;
+
+    /**
+     * Parses a document into records
+     */
+    private interface DocumentParser {
+        List<?> parse(InputStream stream) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        byte[] tableauXML;
+        byte[] tableauJSON;
+        byte[] channelsXML = null;
+        byte[] channelsJSON = null;
+
+        try {
+            tableauXML = download(tableauURL(Format.XML));
+            tableauJSON = download(tableauURL(Format.JSON));
+            channelsXML = download(channelsURL(Format.XML));
+            channelsJSON = download(channelsURL(Format.JSON));
+        } catch (IOException e) {
+            System.out.println("Could not reach SR API (" + e.getMessage() +
+                               "), using generated documents");
+            tableauXML = TableauParserBenchmark.generateSchedule(2000);
+            tableauJSON = toJSON(new TableauParser(
+                    new ByteArrayInputStream(tableauXML)).parse());
+        }
+
+        report("tableau xml", tableauXML,
+               stream -> new TableauParser(stream).parse());
+        report("tableau json", tableauJSON,
+               stream -> new JsonTableauParser(stream).parse());
+
+        if (channelsXML != null) {
+            report("channels xml", channelsXML,
+                   stream -> new ChannelsParser(stream).parse());
+            report("channels json", channelsJSON,
+                   stream -> new JsonChannelsParser(stream).parse());
+        }
+    }
+
+    private static URL tableauURL(Format format) throws IOException {
+        SRAPITableau api = new SRAPITableau(CHANNEL_ID);
+        api.disablePagination();
+        api.setDate(LocalDate.now());
+        api.setFormat(format);
+        return api.build();
+    }
+
+    private static URL channelsURL(Format format) throws IOException {
+        SRAPIChannel api = new SRAPIChannel();
+        api.disablePagination();
+        api.setFormat(format);
+        return api.build();
+    }
+
+    /**
+     * Parse a document repeatedly and print size, time and allocations
+     */
+    private static void report(String name, byte[] document,
+                               DocumentParser parser) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            parser.parse(new ByteArrayInputStream(document));
+        }
+
+        long bytesBefore = TableauParserBenchmark.allocatedBytes();
+        long timeBefore = System.nanoTime();
+        int records = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            records += parser.parse(new ByteArrayInputStream(document)).size();
+        }
+        long time = System.nanoTime() - timeBefore;
+        long bytes = TableauParserBenchmark.allocatedBytes() - bytesBefore;
+
+        System.out.printf("%-14s %8d bytes, %7d gzip, %5d records, " +
+                          "%7.2f us/record, %6d allocated bytes/record%n",
+                          name, document.length, gzipSize(document),
+                          records / ROUNDS,
+                          records == 0 ? 0 : time / 1000.0 / records,
+                          records == 0 ? 0 : bytes / records);
+    }
+
+    private static byte[] download(URL url) throws IOException {
+        try (InputStream stream = url.openStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static int gzipSize(byte[] document) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(document);
+        }
+        return out.size();
+    }
+
+    /**
+     * Writes episodes in the JSON format of the SR API
+     */
+    private static byte[] toJSON(List<Episode> episodes) {
+        StringBuilder json = new StringBuilder("{\"copyright\":\"Copyright " +
+                "Sveriges Radio 2017. All rights reserved.\",\"schedule\":[");
+        for (int i = 0; i < episodes.size(); i++) {
+            Episode e = episodes.get(i);
+            json.append(i == 0 ? "{" : ",{")
+                .append("\"episodeid\":").append(e.episodeid)
+                .append(",\"title\":\"").append(e.title)
+                .append("\",\"subtitle\":\"").append(e.subtitle)
+                .append("\",\"description\":\"").append(e.description)
+                .append("\",\"starttimeutc\":\"/Date(")
+                .append(e.startEpochSecond * 1000)
+                .append(")/\",\"endtimeutc\":\"/Date(")
+                .append(e.endEpochSecond * 1000)
+                .append(")/\",\"program\":{\"id\":").append(e.programid)
+                .append(",\"name\":\"").append(e.programName)
+                .append("\"},\"channel\":{\"id\":").append(e.channelid)
+                .append(",\"name\":\"").append(e.channelName)
+                .append("\"},\"imageurl\":\"").append(e.imageurl)
+                .append("\",\"imageurltemplate\":\"")
+                .append(e.imageurltemplate).append("\"}");
+        }
+        json.append("],\"pagination\":{\"page\":1,\"size\":")
+            .append(episodes.size()).append("}}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * File: TableauParserBenchmark.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-14
+ */
+package model.parser;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Simple benchmark of TableauParser. Parses a generated schedule a number
+ * of times and reports time and allocated bytes per parsed episode, and
+ * time per document for ParallelTableauParser on the common pool.
+ * Not a unit test, run with the main method.
+ */
+public class TableauParserBenchmark {
+
+    private static final int EPISODES = 5000;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int ROUNDS = 50;
+
+    /**
+     * Generates a schedule in the same shape as the SR API returns
+     * @param episodes Number of episodes in schedule
+     * @return The schedule as UTF-8 encoded xml
+     */
+    static byte[] generateSchedule(int episodes) {
+        StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<sr>\n")
+           .append("  <copyright>Copyright Sveriges Radio 2017. All rights ")
+           .append("reserved.</copyright>\n  <schedule>\n");
+
+        for (int i = 0; i < episodes; i++) {
+            int minute = i % (24 * 60);
+            String start = String.format("2017-01-14T%02d:%02d:00Z",
+                                         minute / 60, minute % 60);
+            String end = String.format("2017-01-14T%02d:%02d:59Z",
+                                       minute / 60, minute % 60);
+            xml.append("    <scheduledepisode>\n")
+               .append("      <episodeid>").append(100000 + i)
+               .append("</episodeid>\n")
+               .append("      <title>Ekot ").append(i % 7).append("</title>\n")
+               .append("      <subtitle>Nyheter</subtitle>\n")
+               .append("      <description>Senaste nytt från Ekoredaktionen ")
+               .append("och Sveriges Radios korrespondenter.</description>\n")
+               .append("      <starttimeutc>").append(start)
+               .append("</starttimeutc>\n")
+               .append("      <endtimeutc>").append(end)
+               .append("</endtimeutc>\n")
+               .append("      <program id=\"83\" name=\"Ekot\" />\n")
+               .append("      <channel id=\"132\" name=\"P1\" />\n")
+               .append("      <imageurl>http://static-cdn.sr.se/sida/images/")
+               .append("83/2186746_512_512.jpg?preset=api-default-square")
+               .append("</imageurl>\n")
+               .append("      <imageurltemplate>http://static-cdn.sr.se/sid")
+               .append("a/images/83/2186746_512_512.jpg</imageurltemplate>\n")
+               .append("    </scheduledepisode>\n");
+        }
+
+        xml.append("  </schedule>\n</sr>\n");
+        return xml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Current threads allocated bytes, if supported by the JVM
+     */
+    static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean =
+                ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    public static void main(String[] args) throws Exception {
+        byte[] schedule = generateSchedule(EPISODES);
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            new TableauParser(new ByteArrayInputStream(schedule)).parse();
+        }
+
+        long bytesBefore = allocatedBytes();
+        long timeBefore = System.nanoTime();
+        int parsed = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            List<Episode> episodes =
+                    new TableauParser(new ByteArrayInputStream(schedule))
+                            .parse();
+            parsed += episodes.size();
+        }
+        long time = System.nanoTime() - timeBefore;
+        long bytes = allocatedBytes() - bytesBefore;
+
+        System.out.printf("document: %d bytes, %d episodes%n",
+                          schedule.length, EPISODES);
+        System.out.printf("time: %.2f us/episode%n",
+                          time / 1000.0 / parsed);
+        System.out.printf("allocated: %d bytes/episode%n", bytes / parsed);
+
+        long tableBytesBefore = allocatedBytes();
+        long tableTimeBefore = System.nanoTime();
+        int tableParsed = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            EpisodeTable table = new EpisodeTable(EPISODES);
+            tableParsed += new TableauParser(
+                    new ByteArrayInputStream(schedule)).parseInto(table);
+        }
+        long tableTime = System.nanoTime() - tableTimeBefore;
+        long tableBytes = allocatedBytes() - tableBytesBefore;
+
+        System.out.printf("table time: %.2f us/episode%n",
+                          tableTime / 1000.0 / tableParsed);
+        System.out.printf("table allocated: %d bytes/episode%n",
+                          tableBytes / tableParsed);
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            new ParallelTableauParser(schedule).parse();
+        }
+
+        long sequentialBefore = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            new TableauParser(new ByteArrayInputStream(schedule)).parse();
+        }
+        long sequential = System.nanoTime() - sequentialBefore;
+
+        long parallelBefore = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            new ParallelTableauParser(schedule).parse();
+        }
+        long parallel = System.nanoTime() - parallelBefore;
+
+        System.out.printf("sequential: %.2f ms/document%n",
+                          sequential / 1e6 / ROUNDS);
+        System.out.printf("parallel (%d threads): %.2f ms/document%n",
+                          ForkJoinPool.commonPool().getParallelism(),
+                          parallel / 1e6 / ROUNDS);
+    }
+}
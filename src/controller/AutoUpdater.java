@@ -5,19 +5,41 @@
  */
 package controller;
 
+import model.NowCursor;
 import model.TableauUpdater;
+import model.parser.EpisodeTable;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Takes care of updating the tableau on a regular interval
+ * Takes care of updating the tableau when it might have changed. Instead
+ * of polling on a fixed interval, the next update is made when the
+ * loaded tableau says something happens: when an episode starts or ends,
+ * or when the date rolls over to the tableau of a new day. Updates are
+ * never more than {@link #MAX_DELAY} apart, to pick up changes made to
+ * the tableau. Failed updates are retried with exponential backoff and
+ * jitter, so that clients do not retry in step.
  */
 public class AutoUpdater {
 
-    private static int UPDATE_TIME = 30 * 1000; // millisecond
+    static final long MIN_DELAY = 15 * 1000; // millisecond
+    static final long MAX_DELAY = 10 * 60 * 1000; // millisecond
+    static final long RETRY_DELAY = 5 * 1000; // millisecond
+    static final long MAX_RETRY_DELAY = 5 * 60 * 1000; // millisecond
+    private static final long BOUNDARY_SLACK = 1000; // millisecond
 
-    private TableauUpdater updater;
+    private final TableauUpdater updater;
+    private final ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> next;
+    private int failures = 0;
     private boolean started = false;
 
     /**
@@ -26,22 +48,116 @@ public class AutoUpdater {
      */
     public AutoUpdater(TableauUpdater updater) {
         this.updater = updater;
+
+        ScheduledThreadPoolExecutor executor =
+                new ScheduledThreadPoolExecutor(1, runnable -> {
+                    Thread thread = new Thread(runnable, "auto-updater");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.setRemoveOnCancelPolicy(true);
+        scheduler = executor;
     }
 
     /**
-     * Start background thread which will regularly call method
-     * {@link TableauUpdater#update()}.
+     * Start background thread which will call method
+     * {@link TableauUpdater#update()} whenever the tableau might have
+     * changed.
      */
-    public void start() {
+    public synchronized void start() {
         if (!started) {
-            new Timer().schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    updater.update();
-                }
-            }, 0, UPDATE_TIME);
-
             started = true;
+            schedule(0);
+        }
+    }
+
+    /**
+     * Plan the next update from the tableau loaded now, e.g. after
+     * switching to another channel. Has no effect if not started.
+     */
+    public synchronized void reschedule() {
+        if (started && failures == 0) {
+            schedule(nextDelay(updater.getEpisodes(),
+                               System.currentTimeMillis(),
+                               ZoneId.systemDefault()));
         }
     }
+
+    /**
+     * Replace the planned update with one after delay
+     * @param delay Milliseconds until update
+     */
+    private synchronized void schedule(long delay) {
+        if (next != null) {
+            next.cancel(false);
+        }
+        next = scheduler.schedule(this::update, delay,
+                                  TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Update the tableau, and plan the next update when done. An update
+     * cancelled as the user switched channel is not a failure, and is
+     * not retried.
+     */
+    private void update() {
+        updater.update().whenComplete((result, error) -> {
+            synchronized (this) {
+                if (error instanceof CancellationException) {
+                    // replaced by an update of another channel, which
+                    // plans the next update through reschedule()
+                    schedule(nextDelay(updater.getEpisodes(),
+                                       System.currentTimeMillis(),
+                                       ZoneId.systemDefault()));
+                } else if (error != null) {
+                    failures++;
+                    schedule(retryDelay(failures,
+                             ThreadLocalRandom.current().nextDouble()));
+                } else {
+                    failures = 0;
+                    schedule(nextDelay(updater.getEpisodes(),
+                                       System.currentTimeMillis(),
+                                       ZoneId.systemDefault()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Time until the tableau might have changed: the next time an
+     * episode starts or has ended, see
+     * {@link NowCursor#nextBoundary(EpisodeTable, long)}, or the date
+     * rolls over, whichever is first.
+     * Kept between {@link #MIN_DELAY} and {@link #MAX_DELAY}.
+     * @param episodes Loaded tableau, sorted by start time
+     * @param now Current time in milliseconds since epoch
+     * @param zone Time zone of the tableau date
+     * @return Milliseconds until next update
+     */
+    static long nextDelay(EpisodeTable episodes, long now, ZoneId zone) {
+        long nowSecond = Math.floorDiv(now, 1000);
+        long midnight = LocalDate.ofInstant(Instant.ofEpochMilli(now), zone)
+                                 .plusDays(1)
+                                 .atStartOfDay(zone)
+                                 .toEpochSecond();
+        long next = Math.min(midnight,
+                             NowCursor.nextBoundary(episodes, nowSecond));
+
+        long delay = next * 1000 - now + BOUNDARY_SLACK;
+        return Math.max(MIN_DELAY, Math.min(MAX_DELAY, delay));
+    }
+
+    /**
+     * Time until retrying a failed update. Doubles for each failure in a
+     * row, up to {@link #MAX_RETRY_DELAY}, and is then spread randomly
+     * over its upper half.
+     * @param failures Number of failed updates in a row, at least 1
+     * @param random Random number in [0, 1)
+     * @return Milliseconds until next update
+     */
+    static long retryDelay(int failures, double random) {
+        int doublings = Math.min(failures - 1, 30);
+        long delay = Math.min(MAX_RETRY_DELAY, RETRY_DELAY << doublings);
+        return delay / 2 + (long) (random * (delay / 2));
+    }
 }
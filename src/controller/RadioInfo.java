@@ -6,19 +6,26 @@
 package controller;
 
 import model.ChannelsFetcher;
+import model.ImageLoader;
+import model.NowCursor;
+import model.SnapshotStore;
+import model.TableauPrefetcher;
 import model.TableauUpdater;
 import model.parser.Channel;
 import model.parser.Episode;
+import model.parser.EpisodeTable;
+import model.parser.TableauParser;
 import view.MenuInfo;
 import view.RadioUI;
 import view.TableauRow;
 
+import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
-import java.time.ZonedDateTime;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
@@ -30,14 +37,34 @@ public class RadioInfo implements RadioUI.EpisodeSelect,
                                   RadioUI.ChannelSelect,
                                   RadioUI.Refresh,
                                   TableauUpdater.TableauLoaded,
+                                  TableauUpdater.EpisodesParsed,
+                                  NowCursor.NowChanged,
                                   ChannelsFetcher.ChannelsLoaded {
 
     private static final String PRIMARY_CHANNEL = "Rikskanal";
+    private static final int PREFETCH_MOST_SELECTED = 3;
+    private static final long IMAGE_CACHE_SIZE = 16 * 1024 * 1024; // bytes
+    private static final int SAVED_TABLEAUX = 4;
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("HH:mm")
+                             .withZone(ZoneId.systemDefault());
 
     private TableauUpdater updater;
+    private TableauPrefetcher prefetcher;
     private AutoUpdater autoUpdater;
+    private NowCursor nowCursor;
     private ChannelsFetcher fetcher;
     private RadioUI ui;
+    private volatile int shownChannelID = -1;
+    private volatile EpisodeTable shownEpisodes;
+    private volatile EpisodeTable loadingEpisodes; // batches shown, if any
+    private volatile int selectedEpisodeID = -1;
+    private volatile int selectedChannelID = -1;
+    private volatile int restoredChannelID = -1;
+    private volatile List<Channel> shownChannels;
+    private final SnapshotStore snapshots =
+            new SnapshotStore(SnapshotStore.defaultPath());
+    private final ImageLoader images = new ImageLoader(IMAGE_CACHE_SIZE);
 
     /**
      * Starts a new ui and start to load in channels to be displayed to user
@@ -45,9 +72,17 @@ public class RadioInfo implements RadioUI.EpisodeSelect,
     public RadioInfo() {
         updater = new TableauUpdater();
         updater.setTableauLoadedListener(this);
+        updater.setEpisodesParsedListener(this);
+        // tableau only shows title and times, rest is parsed on selection
+        updater.setProjection(TableauParser.Projection.SUMMARY);
+
+        prefetcher = new TableauPrefetcher(updater);
 
         autoUpdater = new AutoUpdater(updater);
 
+        nowCursor = new NowCursor();
+        nowCursor.setNowChangedListener(this);
+
         fetcher = new ChannelsFetcher();
         fetcher.setChannelsLoadedListener(this);
 
@@ -56,6 +91,21 @@ public class RadioInfo implements RadioUI.EpisodeSelect,
         ui.setChannelSelectListener(this);
         ui.setOnRefreshListener(this);
 
+        // show what was shown last time, while loading it again
+        SnapshotStore.Snapshot snapshot = snapshots.load();
+        if (snapshot != null) {
+            restoredChannelID = snapshot.selectedChannelID;
+            for (SnapshotStore.SavedTableau tableau : snapshot.tableaux) {
+                updater.restore(tableau);
+            }
+            if (!snapshot.channels.isEmpty()) {
+                fetcher.restore(snapshot.channels);
+                onChannelsLoaded(snapshot.channels);
+            }
+        }
+        Runtime.getRuntime().addShutdownHook(
+                new Thread(this::saveSnapshot, "snapshot"));
+
         fetcher.fetch(); // load channels
     }
 
@@ -69,21 +119,42 @@ public class RadioInfo implements RadioUI.EpisodeSelect,
      */
     @Override
     public void onEpisodeSelect(String name, int index, int id) {
-        Episode episode = updater.getEpisode(index);
+        Episode episode = null;
+        EpisodeTable loading = loadingEpisodes;
+        EpisodeTable shown = shownEpisodes;
+        if (loading != null) {
+            // batches of a tableau still downloading are on screen
+            synchronized (loading) {
+                int found = loading.indexOf(id);
+                if (found >= 0) {
+                    episode = loading.toEpisode(found);
+                }
+            }
+        } else if (shown != null) {
+            episode = updater.getEpisodeDetails(shown, id);
+        }
 
         if (episode == null) {
             return; // can't find episode
         }
+        selectedEpisodeID = id;
 
-        InputStream image = null;
-        try {
-            image = new URL(episode.imageurl).openStream();
-        } catch (IOException | NullPointerException e) {
-            /* result: image = null // could not load image */
-        }
+        String url = episode.imageurl;
+        boolean hasImage = url != null && !url.isEmpty();
+        int size = RadioUI.EPISODE_IMAGE_SIZE;
+        BufferedImage image = hasImage ? images.getCached(url, size) : null;
 
         ui.setEpisodeContent(episode.title, episode.subtitle,
-                    episode.description, image);
+                    episode.description, image, hasImage && image == null);
+
+        if (hasImage && image == null) {
+            // load in background, and only show it if still selected
+            images.load(url, size).whenComplete((loaded, error) -> {
+                if (selectedEpisodeID == id) {
+                    ui.setEpisodeImage(loaded);
+                }
+            });
+        }
     }
 
     /**
@@ -95,15 +166,21 @@ public class RadioInfo implements RadioUI.EpisodeSelect,
      */
     @Override
     public void onChannelSelect(String name, int id) {
-        updater.setChannelToLoad(id);
-        updater.update();
-
+        selectedChannelID = id;
         Channel channel = fetcher.getChannel(id);
         if (channel != null) {
             ui.setColor(channel.color);
             ui.setTitle(channel.name);
             ui.clear();
+            shownChannelID = -1; // tableau is cleared, show it as it loads
+            selectedEpisodeID = -1;
         }
+
+        // after clearing, as a cached tableau is handed over at once
+        updater.setChannelToLoad(id);
+        updater.update();
+
+        prefetcher.onChannelSelected(id, PREFETCH_MOST_SELECTED);
     }
 
     /**
@@ -112,7 +189,7 @@ public class RadioInfo implements RadioUI.EpisodeSelect,
      */
     @Override
     public void onRefresh() {
-        updater.update();
+        updater.refresh();
     }
 
     /**
@@ -128,27 +205,24 @@ public class RadioInfo implements RadioUI.EpisodeSelect,
         // uses set for uniqueness and linked to preserve order
         Map<String, List<MenuInfo>> channelItems = new HashMap<>();
 
-        List<MenuInfo> displayChannels = new ArrayList<>();
+        List<Channel> displayChannels = new ArrayList<>();
 
         if (channels == null) {
-            setErrorMessage("Could not load information. " +
-                            "Check internet connection");
+            if (shownChannels == null) {
+                setErrorMessage("Could not load information. " +
+                                "Check internet connection");
+            } // else keep showing channels from last time, offline
             return;
         }
+        if (channels.equals(shownChannels)) {
+            return; // same as restored from snapshot, already shown
+        }
+        boolean first = shownChannels == null;
+        shownChannels = channels;
 
         for (Channel channel : channels) {
             if (channel.channeltype.equals(PRIMARY_CHANNEL)) {
-                InputStream image;
-                try {
-                    URL imageURL = new URL(channel.image);
-                    image = imageURL.openStream();
-                } catch (IOException e) {
-                    image = null;
-                }
-                displayChannels.add(new MenuInfo(
-                        image,
-                        channel.name,
-                        channel.id));
+                displayChannels.add(channel);
 
             } else {
 
@@ -163,11 +237,75 @@ public class RadioInfo implements RadioUI.EpisodeSelect,
             }
         }
         ui.setMenus(channelTypes, channelItems);
-        ui.setDisplayMenu(displayChannels);
+        setDisplayMenu(displayChannels);
+
+        if (first) {
+            // channel selected last time, or the first one
+            Channel selected = channels.get(0);
+            for (Channel channel : channels) {
+                if (channel.id == restoredChannelID) {
+                    selected = channel;
+                }
+            }
+            onChannelSelect(selected.name, selected.id);
+        }
 
         autoUpdater.start(); // start if not already started
 
-        onChannelSelect(channels.get(0).name, channels.get(0).id);
+        // make the channels on display quick to switch to
+        List<Integer> displayIDs = new ArrayList<>();
+        for (Channel channel : displayChannels) {
+            displayIDs.add(channel.id);
+        }
+        prefetcher.prefetch(displayIDs);
+    }
+
+    /**
+     * Show the channels which have their logo on display. The logos are
+     * downloaded and prepared in the background, and the channels are
+     * shown when all are done.
+     * @param channels Channels to show
+     */
+    private void setDisplayMenu(List<Channel> channels) {
+        List<CompletableFuture<BufferedImage>> logos = new ArrayList<>();
+        for (Channel channel : channels) {
+            logos.add(channel.image == null
+                      ? CompletableFuture.completedFuture(null)
+                      : images.load(channel.image, RadioUI.CHANNEL_IMAGE_SIZE)
+                              .exceptionally(error -> null));
+        }
+
+        CompletableFuture.allOf(logos.toArray(new CompletableFuture<?>[0]))
+                .thenRun(() -> {
+                    List<MenuInfo> displayChannels = new ArrayList<>();
+                    for (int i = 0; i < channels.size(); i++) {
+                        Channel channel = channels.get(i);
+                        displayChannels.add(new MenuInfo(
+                                logos.get(i).join(),
+                                channel.name,
+                                channel.id));
+                    }
+                    ui.setDisplayMenu(displayChannels);
+                });
+    }
+
+    /**
+     * Save channels, the selected channel and the last viewed tableaux,
+     * to be shown at once on next start
+     */
+    private void saveSnapshot() {
+        List<Channel> channels = fetcher.getChannels();
+        if (channels == null) {
+            return; // nothing loaded
+        }
+
+        try {
+            snapshots.save(new SnapshotStore.Snapshot(
+                    channels, selectedChannelID,
+                    updater.getRecentTableaux(SAVED_TABLEAUX)));
+        } catch (IOException e) {
+            /* result: next start will wait for the network */
+        }
     }
 
     /**
@@ -180,11 +318,8 @@ public class RadioInfo implements RadioUI.EpisodeSelect,
      *                 could not load tableau
      */
     @Override
-    public void onTableauLoaded(int channelID, List<Episode> episodes) {
-        List<TableauRow> tableauEpisodes = new ArrayList<>();
-
-        DateTimeFormatter format = DateTimeFormatter.ofPattern("HH:mm");
-        int nowIndex = 0;
+    public void onTableauLoaded(int channelID, EpisodeTable episodes) {
+        long now = Instant.now().getEpochSecond();
 
         if (channelID == -1 || episodes == null) {
             setErrorMessage("Could not load information. " +
@@ -192,26 +327,115 @@ public class RadioInfo implements RadioUI.EpisodeSelect,
             return;
         }
 
-        for (int i = 0, episodesSize = episodes.size(); i < episodesSize; i++) {
-            Episode episode = episodes.get(i);
-            boolean hasHappened = false;
+        if (channelID == shownChannelID) {
+            // refresh of tableau shown, only change rows which differ
+            if (episodes != shownEpisodes) {
+                shownEpisodes = episodes;
+                nowCursor.setEpisodes(channelID, episodes);
+                if (ui.updateTableauContent(
+                        toTableauRows(episodes, 0, now))) {
+                    ui.setNowEpisode(nowCursor.getAired(),
+                                     nowCursor.getCurrent());
+                }
+            }
+            autoUpdater.reschedule();
+            return;
+        }
+
+        nowCursor.setEpisodes(channelID, episodes);
+        // last episode which has started, or first if none has
+        int nowIndex = Math.max(nowCursor.getCurrent(), 0);
+
+        shownChannelID = channelID;
+        shownEpisodes = episodes;
+        loadingEpisodes = null;
+        ui.setTableauContent(toTableauRows(episodes, 0, now));
+        ui.setNowEpisode(nowCursor.getAired(), nowCursor.getCurrent());
+        ui.setEpisodeSelected(nowIndex);
+
+        // next update when the shown tableau might change
+        autoUpdater.reschedule();
+    }
+
+    /**
+     * This method acts as listener on the model, whenever an episode of
+     * the shown tableau has started or ended. Rows which have aired are
+     * shown as such, without loading the tableau again.
+     * @param channelID Channel id of the tableau
+     * @param aired Number of episodes which have aired
+     * @param current Index of episode on air
+     */
+    @Override
+    public void onNowChanged(int channelID, int aired, int current) {
+        if (channelID == shownChannelID) {
+            ui.setNowEpisode(aired, current);
+        }
+    }
+
+    /**
+     * This method acts as listener on the model, while the tableau for
+     * a channel is loading. When switching to a new channel the episodes
+     * are shown as they arrive, so the tableau fills up while the rest is
+     * still downloading. Refreshes of the channel already shown are left
+     * to {@link #onTableauLoaded(int, EpisodeTable)}.
+     * @param channelID Channel id for tableau being loaded
+     * @param offset Index of first episode in the batch
+     * @param episodes Episodes parsed so far, batch is from offset to end
+     */
+    @Override
+    public void onEpisodesParsed(int channelID, int offset,
+                                 EpisodeTable episodes) {
+        if (channelID == shownChannelID) {
+            return;
+        }
 
-            if (episode.starttime.compareTo(ZonedDateTime.now()) < 0) {
-                nowIndex = i;
-                if (episode.endtime.compareTo(ZonedDateTime.now()) < 0) {
-                    hasHappened = true;
+        // the table is still being filled, keep a copy of the batch to
+        // look up episodes selected before the whole tableau has loaded
+        EpisodeTable loading = offset == 0 ? new EpisodeTable()
+                                           : loadingEpisodes;
+        if (loading != null) {
+            synchronized (loading) {
+                for (int i = offset, size = episodes.size(); i < size; i++) {
+                    loading.add(episodes.toEpisode(i));
                 }
             }
+            loadingEpisodes = loading;
+        }
 
-            String time = episode.starttime.format(format);
-            time += " - ";
-            time += episode.endtime.format(format);
-            tableauEpisodes.add(new TableauRow(time, episode.title,
-                    episode.episodeid, !hasHappened));
+        long now = Instant.now().getEpochSecond();
+        List<TableauRow> tableauEpisodes =
+                toTableauRows(episodes, offset, now);
+
+        if (offset == 0) {
+            ui.setTableauContent(tableauEpisodes);
+        } else {
+            ui.addTableauContent(tableauEpisodes);
         }
+    }
 
-        ui.setTableauContent(tableauEpisodes);
-        ui.setEpisodeSelected(nowIndex);
+    /**
+     * Create rows for the tableau from episodes
+     * @param episodes Episodes to show
+     * @param from Index of first episode to create a row for
+     * @param now Current time in epoch seconds, episodes which has ended
+     *            will be shown as disabled
+     * @return Rows representing the episodes from index from to the end
+     */
+    private List<TableauRow> toTableauRows(EpisodeTable episodes, int from,
+                                           long now) {
+        List<TableauRow> rows = new ArrayList<>(episodes.size() - from);
+        for (int i = from, size = episodes.size(); i < size; i++) {
+            long start = episodes.getStartEpochSecond(i);
+            long end = episodes.getEndEpochSecond(i);
+            boolean hasHappened = end < now;
+
+            String time = TIME_FORMAT.format(Instant.ofEpochSecond(start));
+            time += " - ";
+            time += TIME_FORMAT.format(Instant.ofEpochSecond(end));
+            rows.add(new TableauRow(time, episodes.getTitle(i),
+                                    episodes.getEpisodeId(i), !hasHappened));
+        }
+        return rows;
     }
 
     /**
@@ -223,6 +447,9 @@ public class RadioInfo implements RadioUI.EpisodeSelect,
     private void setErrorMessage(String message) {
         List<TableauRow> tableauEpisodes = new ArrayList<>();
         tableauEpisodes.add(new TableauRow("", message, -1, true));
+        shownChannelID = -1; // next tableau replaces message
+        shownEpisodes = null;
+        loadingEpisodes = null;
         ui.clear();
         ui.setTableauContent(tableauEpisodes);
         ui.setEpisodeSelected(0);
@@ -11,17 +11,17 @@ import model.srurl.SRAPIChannel;
 
 import javax.xml.stream.XMLStreamException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
-import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * ChannelsFetcher takes care of downloading channels. Will run on
- * its own thread and therefore uses a listener to
- * return information. Will only run one thread at a time, and will only
- * run thread when actually downloading, i.e. no waiting background thread.
+ * the shared {@link FetchEngine} and therefore uses a listener to
+ * return information. Will only run one download at a time.
  */
 public class ChannelsFetcher implements Runnable {
 
@@ -38,20 +38,26 @@ public class ChannelsFetcher implements Runnable {
         void onChannelsLoaded(List<Channel> channels);
     }
 
-    private Thread fetcher;
+    private CompletableFuture<Void> fetching;
     private ChannelsLoaded channelsLoadedListener;
     private Map<Integer, Channel> cachedChannels;
+    private volatile List<Channel> loadedChannels; // in order loaded
 
     /**
-     * Will download channels from the SR API, on its own thread.
-     * Only one thread will run at a time. Calling this method when
-     * fetch() is already downloading will have no effect.
+     * Will download channels from the SR API, on the shared
+     * {@link FetchEngine}. Only one download will run at a time. Calling
+     * this method when fetch() is already downloading will have no effect.
+     * @return Future completed when channels have been handed over to the
+     *         listener. Cancelling it aborts the download.
      */
-    public void fetch() {
-        if (fetcher == null || !fetcher.isAlive()) {
-            fetcher = new Thread(this);
-            fetcher.start();
+    public synchronized CompletableFuture<Void> fetch() {
+        if (fetching == null || fetching.isDone()) {
+            fetching = FetchEngine.shared().submit(fetch -> {
+                fetch(fetch);
+                return null;
+            });
         }
+        return fetching;
     }
 
     /**
@@ -62,29 +68,67 @@ public class ChannelsFetcher implements Runnable {
      */
     @Override
     public void run() {
+        fetch(new FetchEngine.Fetch());
+    }
+
+    /**
+     * Downloads channels and returns the result via the listener
+     * @param fetch Handle of the download, through which it is cancelled
+     */
+    private void fetch(FetchEngine.Fetch fetch) {
         SRAPIChannel api = new SRAPIChannel();
         api.disablePagination();
         try {
             URL url = api.build();
-            ChannelsParser parser = new ChannelsParser(url.openStream());
-            List<Channel> channels = parser.parse();
+            List<Channel> channels = loadedChannels;
+            try (HttpTransport.Conditional content = fetch.register(
+                    HttpTransport.shared().openIfModified(url,
+                                                          channels != null))) {
+                InputStream stream = content.getStream();
+                if (stream != null) {
+                    channels = new ChannelsParser(stream).parse();
+                } // else not modified, reuse last loaded channels
+
+                cacheChannels(channels);
+                // only skip the download next time once channels are kept
+                content.commit();
+            }
 
-            cacheChannels(channels);
             if (channelsLoadedListener != null) {
                 channelsLoadedListener.onChannelsLoaded(channels);
             }
 
         } catch (XMLStreamException | IOException e) {
             // could not read from stream
+            if (fetch.isCancelled()) {
+                return;
+            }
             channelsLoadedListener.onChannelsLoaded(null);
         }
     }
 
+    /**
+     * Use channels loaded earlier, e.g. restored from disk, until new
+     * ones have been downloaded. Does not call the listener.
+     * @param channels Channels to use
+     */
+    public void restore(List<Channel> channels) {
+        cacheChannels(channels);
+    }
+
+    /**
+     * Get the last loaded channels. Thread-safe
+     * @return Channels in the order loaded, or null if none loaded
+     */
+    public List<Channel> getChannels() {
+        return loadedChannels;
+    }
+
     /**
      * Cache loaded channels in a thread-safe way
      * @param channels Channels to cache
      */
-    private void cacheChannels(Collection<Channel> channels) {
+    private void cacheChannels(List<Channel> channels) {
         if (cachedChannels == null) {
             cachedChannels = new ConcurrentHashMap<>();
         } else {
@@ -94,6 +138,7 @@ public class ChannelsFetcher implements Runnable {
         for (Channel channel : channels) {
             cachedChannels.put(channel.id, channel);
         }
+        loadedChannels = channels;
     }
 
     /**
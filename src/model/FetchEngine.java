@@ -0,0 +1,189 @@
+/*
+ * File: FetchEngine.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-25
+ */
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * FetchEngine runs downloads on a shared, bounded pool of daemon threads,
+ * instead of each download starting a thread of its own. Every download
+ * returns a CompletableFuture. Cancelling the future really stops the
+ * download: the streams the download has registered with its
+ * {@link Fetch} are closed, which closes the connection, and the thread is
+ * interrupted so parsing stops as well.
+ *
+ * Thread-safe, use the engine from {@link #shared()}.
+ */
+public final class FetchEngine {
+
+    private static final int THREADS = 4;
+    private static final long KEEP_ALIVE = 30; // seconds
+    private static final FetchEngine SHARED = new FetchEngine(THREADS);
+
+    /**
+     * A download to run on the engine
+     * @param <T> Result of the download
+     */
+    public interface Task<T> {
+        /**
+         * Runs the download. Streams should be registered with the fetch,
+         * so that they are closed if the download is cancelled.
+         * @param fetch Handle of this run of the download
+         * @return Result of download
+         * @throws Exception If download failed
+         */
+        T run(Fetch fetch) throws Exception;
+    }
+
+    /**
+     * Handle of one running download, through which it can be cancelled
+     */
+    public static final class Fetch {
+        private final List<Closeable> open = new ArrayList<>();
+        private Thread thread;
+        private boolean cancelled = false;
+
+        /**
+         * Creates a handle for a download run outside the engine, which
+         * can not be cancelled
+         */
+        public Fetch() {}
+
+        /**
+         * Register a stream, which will be closed if the download is
+         * cancelled. The stream must still be closed by the download.
+         * @param closeable Stream to register, may be null
+         * @param <C> Type of stream
+         * @return The same stream
+         * @throws InterruptedIOException If already cancelled, in which
+         *                                case the stream is closed
+         */
+        public <C extends Closeable> C register(C closeable)
+                                                   throws IOException {
+            if (closeable == null) {
+                return null;
+            }
+            synchronized (this) {
+                if (!cancelled) {
+                    open.add(closeable);
+                    return closeable;
+                }
+            }
+            closeable.close();
+            throw new InterruptedIOException("Fetch was cancelled");
+        }
+
+        /**
+         * @return True if download has been cancelled
+         */
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        private synchronized void start() {
+            thread = Thread.currentThread();
+        }
+
+        private synchronized void finish() {
+            thread = null;
+            open.clear();
+        }
+
+        /**
+         * Close all registered streams and interrupt the download
+         */
+        private void cancel() {
+            List<Closeable> toClose;
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                toClose = new ArrayList<>(open);
+                open.clear();
+                if (thread != null) {
+                    thread.interrupt();
+                }
+            }
+            for (Closeable closeable : toClose) {
+                try {
+                    closeable.close();
+                } catch (IOException e) {
+                    /* result: already closed or broken, either way done */
+                }
+            }
+        }
+    }
+
+    private final ExecutorService executor;
+
+    /**
+     * @param threads Number of downloads which can run at once
+     */
+    private FetchEngine(int threads) {
+        AtomicInteger count = new AtomicInteger(0);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                threads, threads, KEEP_ALIVE, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable,
+                            "fetch-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        executor = pool;
+    }
+
+    /**
+     * @return The engine shared by the whole program
+     */
+    public static FetchEngine shared() {
+        return SHARED;
+    }
+
+    /**
+     * Run a download on the engine
+     * @param task Download to run
+     * @param <T> Result of the download
+     * @return Future of the result. Cancelling it closes the streams of the
+     *         download and interrupts it.
+     */
+    public <T> CompletableFuture<T> submit(Task<T> task) {
+        Fetch fetch = new Fetch();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                fetch.cancel();
+            }
+        });
+
+        executor.execute(() -> {
+            if (future.isDone()) {
+                return; // cancelled while queued
+            }
+            fetch.start();
+            try {
+                future.complete(task.run(fetch));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                fetch.finish();
+                Thread.interrupted(); // don't leak into next download
+            }
+        });
+        return future;
+    }
+}
@@ -0,0 +1,358 @@
+/*
+ * File: HttpTransport.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-22
+ */
+package model;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * HttpTransport is the single way downloads are made, so that all of them
+ * share one HttpClient. The client keeps connections alive and reuses them
+ * between requests, multiplexes requests over HTTP/2 where the server
+ * supports it, and asks for gzip compressed responses. All requests have
+ * timeouts, both until the response arrives and while its body is read,
+ * so a download never hangs forever on a dead or stalled connection.
+ *
+ * With {@link #openIfModified(URL, boolean)} the transport remembers the
+ * validators (ETag and Last-Modified) of each url, and makes conditional
+ * requests so that unchanged content is not downloaded again. For urls
+ * without validators a hash of the content is remembered instead. The
+ * validators are only remembered once the caller has kept the content,
+ * see {@link Conditional#commit()}.
+ *
+ * Thread-safe, use the transport from {@link #shared()}.
+ */
+public final class HttpTransport {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    // until the response headers have arrived
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(20);
+    // without any bytes of the body arriving
+    private static final Duration READ_TIMEOUT = Duration.ofSeconds(20);
+    private static final int MAX_VALIDATORS = 256;
+    private static final int NOT_MODIFIED = 304;
+    private static final HttpTransport SHARED = new HttpTransport(
+            HttpClient.newBuilder()
+                      .version(HttpClient.Version.HTTP_2)
+                      .connectTimeout(CONNECT_TIMEOUT)
+                      .followRedirects(HttpClient.Redirect.NORMAL)
+                      .build(),
+            READ_TIMEOUT);
+
+    /**
+     * What is known about the last response from a url
+     */
+    private static final class Validators {
+        final String etag;
+        final String lastModified;
+        final byte[] hash; // of content, only if no etag or last-modified
+
+        Validators(String etag, String lastModified, byte[] hash) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * Content opened through {@link #openIfModified(URL, boolean)}, with
+     * the validators to remember for it. The validators are not
+     * remembered until {@link #commit()} is called, so that content which
+     * was never kept, e.g. as the download was aborted or could not be
+     * parsed, is not taken as unchanged the next time.
+     */
+    public final class Conditional implements Closeable {
+        private final InputStream stream;
+        private final String key;
+        private final Validators validators;
+
+        /**
+         * @param stream Stream with the content, or null if not modified
+         * @param key Url of the content
+         * @param validators Validators to remember, or null if none
+         */
+        private Conditional(InputStream stream, String key,
+                            Validators validators) {
+            this.stream = stream;
+            this.key = key;
+            this.validators = validators;
+        }
+
+        /**
+         * @return Stream with the content, or null if the content has not
+         *         changed since the last commit
+         */
+        public InputStream getStream() {
+            return stream;
+        }
+
+        /**
+         * Remember the validators of the content, so that the next request
+         * asks if it has changed. Should be called once the content has
+         * been read and kept.
+         */
+        public void commit() {
+            if (validators != null) {
+                remember(key, validators);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+
+    private final HttpClient client;
+    private final Duration readTimeout;
+    private final Map<String, Validators> validators =
+            new LinkedHashMap<String, Validators>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<String, Validators> eldest) {
+                    return size() > MAX_VALIDATORS;
+                }
+            };
+
+    /**
+     * @param client Client to make requests with
+     * @param readTimeout Longest time to wait for more of a response body
+     */
+    private HttpTransport(HttpClient client, Duration readTimeout) {
+        this.client = client;
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * Creates a transport with its own client and validators, for tests
+     * @return A new transport
+     */
+    static HttpTransport create() {
+        return create(READ_TIMEOUT);
+    }
+
+    /**
+     * Creates a transport with its own client, validators and read
+     * timeout, for tests
+     * @param readTimeout Longest time to wait for more of a response body
+     * @return A new transport
+     */
+    static HttpTransport create(Duration readTimeout) {
+        return new HttpTransport(HttpClient.newBuilder()
+                                           .connectTimeout(CONNECT_TIMEOUT)
+                                           .build(),
+                                 readTimeout);
+    }
+
+    /**
+     * @return The transport shared by the whole program
+     */
+    public static HttpTransport shared() {
+        return SHARED;
+    }
+
+    /**
+     * Open a stream to the content of a url, in the same way as
+     * {@link URL#openStream()}. Blocks until the response headers have
+     * arrived, the body is read through the stream. Compressed responses
+     * are decompressed. The stream must be closed to free the connection.
+     * A read which gets no bytes for a while fails with a
+     * {@link java.net.http.HttpTimeoutException}.
+     * @param url Url to get
+     * @return Stream with the content
+     * @throws FileNotFoundException If there is nothing at url (404/410)
+     * @throws InterruptedIOException If thread was interrupted while
+     *                                waiting for the response
+     * @throws IOException If the request failed, timed out or got an
+     *                     error response
+     */
+    public InputStream open(URL url) throws IOException {
+        return decode(send(request(url).build(), url));
+    }
+
+    /**
+     * Open a stream to the content of a url, unless the content is the
+     * same as the last time it was committed through this method. If the
+     * server gave validators last time, a conditional request is made and
+     * the server tells if the content has changed. Otherwise the content is
+     * downloaded and compared with a hash of the last content.
+     * @param url Url to get
+     * @param cached True if caller has kept the content from last time. If
+     *               false, content is always returned
+     * @return The content, where the stream is null if cached is true and
+     *         the content has not changed. Must be closed, and committed
+     *         once the content has been kept
+     * @throws FileNotFoundException If there is nothing at url (404/410)
+     * @throws InterruptedIOException If thread was interrupted while
+     *                                waiting for the response
+     * @throws IOException If the request failed, timed out or got an
+     *                     error response
+     */
+    public Conditional openIfModified(URL url, boolean cached)
+                                                            throws IOException {
+        String key = url.toString();
+        Validators last;
+        synchronized (validators) {
+            last = validators.get(key);
+        }
+
+        HttpRequest.Builder request = request(url);
+        if (cached && last != null) {
+            if (last.etag != null) {
+                request.header("If-None-Match", last.etag);
+            }
+            if (last.lastModified != null) {
+                request.header("If-Modified-Since", last.lastModified);
+            }
+        }
+
+        HttpResponse<InputStream> response = send(request.build(), url);
+        if (response.statusCode() == NOT_MODIFIED) {
+            response.body().close();
+            if (cached) {
+                return new Conditional(null, key, null);
+            }
+            // validators only sent when cached, should never get here
+            throw new IOException("Server returned HTTP 304 for " + url);
+        }
+
+        String etag = response.headers().firstValue("ETag").orElse(null);
+        String lastModified = response.headers()
+                                      .firstValue("Last-Modified")
+                                      .orElse(null);
+        if (etag != null || lastModified != null) {
+            return new Conditional(decode(response), key,
+                                   new Validators(etag, lastModified, null));
+        }
+
+        // no validators, compare the content instead
+        byte[] content;
+        try (InputStream stream = decode(response)) {
+            content = stream.readAllBytes();
+        }
+        byte[] hash = hash(content);
+        if (cached && last != null && Arrays.equals(last.hash, hash)) {
+            return new Conditional(null, key, null);
+        }
+        return new Conditional(new ByteArrayInputStream(content), key,
+                               new Validators(null, null, hash));
+    }
+
+    /**
+     * Create a request with the settings all requests share
+     * @param url Url to get
+     * @return Builder of the request
+     * @throws IOException If url is not a valid uri
+     */
+    private static HttpRequest.Builder request(URL url) throws IOException {
+        try {
+            return HttpRequest.newBuilder(url.toURI())
+                              .timeout(REQUEST_TIMEOUT)
+                              .header("Accept-Encoding", "gzip")
+                              .GET();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            throw new IOException("Invalid url: " + url, e);
+        }
+    }
+
+    /**
+     * Send a request and check the status of the response
+     * @param request Request to send
+     * @param url Url of request, for error messages
+     * @return Response with a successful or 304 status
+     * @throws IOException If request failed or got an error response
+     */
+    private HttpResponse<InputStream> send(HttpRequest request, URL url)
+                                                            throws IOException {
+        CompletableFuture<HttpResponse<InputStream>> pending =
+                client.sendAsync(request,
+                                 HttpResponse.BodyHandlers.ofInputStream());
+        HttpResponse<InputStream> response;
+        try {
+            response = pending.get();
+        } catch (InterruptedException e) {
+            pending.cancel(true); // give up on the request, not only waiting
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while getting "
+                                             + url);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+
+        int status = response.statusCode();
+        if (status >= 400) {
+            response.body().close();
+            if (status == 404 || status == 410) {
+                throw new FileNotFoundException(url.toString());
+            }
+            throw new IOException("Server returned HTTP " + status
+                                  + " for " + url);
+        }
+        return response;
+    }
+
+    private void remember(String key, Validators value) {
+        synchronized (validators) {
+            validators.put(key, value);
+        }
+    }
+
+    private static byte[] hash(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // required on all JVMs
+        }
+    }
+
+    /**
+     * Decompress the body of a response if needed, and make reading it
+     * time out if the server stops sending
+     * @param response Response to read body from
+     * @return Stream with the uncompressed body
+     * @throws IOException If the body is not valid gzip
+     */
+    private InputStream decode(HttpResponse<InputStream> response)
+                                                            throws IOException {
+        InputStream body = new IdleTimeoutInputStream(response.body(),
+                                                      readTimeout);
+        String encoding = response.headers()
+                                  .firstValue("Content-Encoding")
+                                  .orElse("");
+        if (encoding.equalsIgnoreCase("gzip")) {
+            try {
+                return new GZIPInputStream(body);
+            } catch (IOException e) {
+                body.close();
+                throw e;
+            }
+        }
+        return body;
+    }
+}
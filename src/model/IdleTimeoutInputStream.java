@@ -0,0 +1,151 @@
+/*
+ * File: IdleTimeoutInputStream.java
+ * Author: Fredrik Johansson
+ * Date: 2017-02-01
+ */
+package model;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InputStream which is closed by a watchdog if no bytes have arrived for
+ * a while, so that a read never blocks forever on a server which stops
+ * sending in the middle of a response. A read which is cut short by the
+ * watchdog throws an {@link HttpTimeoutException}, and never ends as if
+ * the whole stream had been read.
+ */
+class IdleTimeoutInputStream extends FilterInputStream {
+
+    private static final ScheduledThreadPoolExecutor WATCHDOG;
+
+    static {
+        WATCHDOG = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "read-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        WATCHDOG.setRemoveOnCancelPolicy(true);
+    }
+
+    private final long timeout; // ns
+    private volatile long lastRead; // System.nanoTime() of last bytes
+    private volatile boolean timedOut = false;
+    private ScheduledFuture<?> check;
+    private boolean closed = false;
+
+    /**
+     * @param in Stream to read from
+     * @param timeout Longest time to wait for bytes to arrive
+     */
+    IdleTimeoutInputStream(InputStream in, Duration timeout) {
+        super(in);
+        this.timeout = timeout.toNanos();
+        lastRead = System.nanoTime();
+        synchronized (this) {
+            check = WATCHDOG.schedule(this::check, this.timeout,
+                                      TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Closes the stream if it has been idle for too long, otherwise
+     * checks again when it could have been. The check is only scheduled
+     * once per timeout, not once per read.
+     */
+    private void check() {
+        long idle = System.nanoTime() - lastRead;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (idle < timeout) {
+                check = WATCHDOG.schedule(this::check, timeout - idle,
+                                          TimeUnit.NANOSECONDS);
+                return;
+            }
+            timedOut = true;
+        }
+        try {
+            close();
+        } catch (IOException e) {
+            /* result: the blocked read fails anyway */
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b;
+        try {
+            b = super.read();
+        } catch (IOException e) {
+            throw timedOut ? timeout(e) : e;
+        }
+        return received(b);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read;
+        try {
+            read = super.read(b, off, len);
+        } catch (IOException e) {
+            throw timedOut ? timeout(e) : e;
+        }
+        return received(read);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped;
+        try {
+            skipped = super.skip(n);
+        } catch (IOException e) {
+            throw timedOut ? timeout(e) : e;
+        }
+        lastRead = System.nanoTime();
+        return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            check.cancel(false);
+        }
+        super.close();
+    }
+
+    /**
+     * @param result What a read returned
+     * @return The result
+     * @throws HttpTimeoutException If the stream ended as it was closed by
+     *                              the watchdog
+     */
+    private int received(int result) throws HttpTimeoutException {
+        if (result == -1 && timedOut) {
+            throw timeout(null);
+        }
+        lastRead = System.nanoTime();
+        return result;
+    }
+
+    private HttpTimeoutException timeout(IOException cause) {
+        HttpTimeoutException e = new HttpTimeoutException(
+                "No data received for "
+                + TimeUnit.NANOSECONDS.toMillis(timeout) + " ms");
+        if (cause != null) {
+            e.initCause(cause);
+        }
+        return e;
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * File: ImageLoader.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-28
+ */
+package model;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.AlphaComposite;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Downloads and prepares images on the shared {@link FetchEngine}, so it
+ * never happens on the thread asking for them. An image is decoded once,
+ * scaled once to the size it is shown in, and converted to an image
+ * compatible with the screen, so that showing it is a plain copy. Large
+ * images are subsampled while decoded, and the original is never kept.
+ * Prepared images are kept by url and size in a least recently used
+ * cache, bounded by the number of bytes the images take up in memory.
+ * Asking for an image which is already being prepared joins that download.
+ *
+ * Thread-safe.
+ */
+public final class ImageLoader {
+
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private final long maxBytes;
+    private final Map<String, BufferedImage> images =
+            new LinkedHashMap<>(16, 0.75f, true); // least recently used first
+    private final SingleFlight<String, BufferedImage> flights =
+            new SingleFlight<>();
+    private long bytes = 0;
+
+    /**
+     * @param maxBytes Most bytes the cached images may take up in memory
+     */
+    public ImageLoader(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Get an image if it is cached, without loading it
+     * @param url Url of image
+     * @param size Width and height of image
+     * @return The image, or null if not cached
+     */
+    public synchronized BufferedImage getCached(String url, int size) {
+        return images.get(key(url, size));
+    }
+
+    /**
+     * Load an image in the background, or get it from the cache
+     * @param url Url of image
+     * @param size Width and height to scale image to
+     * @return Future of the prepared image, completed at once if cached.
+     *         Completed exceptionally if the image could not be downloaded
+     *         or decoded. Cancelling it only cancels the download if no
+     *         one else is waiting for the image
+     */
+    public CompletableFuture<BufferedImage> load(String url, int size) {
+        BufferedImage cached = getCached(url, size);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        String key = key(url, size);
+        return flights.join(key, () -> FetchEngine.shared().submit(
+                fetch -> download(url, size, key, fetch)));
+    }
+
+    /**
+     * Downloads, prepares and caches an image
+     * @param url Url of image
+     * @param size Width and height to scale image to
+     * @param key Key of image in cache
+     * @param fetch Handle of the download
+     * @return The image
+     * @throws IOException If image could not be downloaded or decoded
+     */
+    private BufferedImage download(String url, int size, String key,
+                                   FetchEngine.Fetch fetch)
+                                                           throws IOException {
+        BufferedImage image;
+        try (InputStream stream = fetch.register(
+                HttpTransport.shared().open(new URL(url)))) {
+            image = decode(stream, size);
+        }
+        if (image == null) {
+            throw new IOException("Not a known image format: " + url);
+        }
+
+        BufferedImage prepared = scale(image, size);
+        put(key, prepared);
+        return prepared;
+    }
+
+    /**
+     * Decodes an image, skipping pixels of images much larger than they
+     * will be shown, so that the whole original is never in memory
+     * @param stream Encoded image
+     * @param size Width and height image will be scaled to
+     * @return Decoded image, at least twice the size if large enough, or
+     *         null if not a known image format
+     * @throws IOException If image could not be read
+     */
+    static BufferedImage decode(InputStream stream, int size)
+                                                           throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(stream)) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int smallest = Math.min(reader.getWidth(0),
+                                        reader.getHeight(0));
+                int subsampling = Math.max(1, smallest / (size * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scale an image to a square of given size, into an image compatible
+     * with the screen
+     * @param image Decoded image
+     * @param size Width and height of scaled image
+     * @return The scaled image
+     */
+    static BufferedImage scale(BufferedImage image, int size) {
+        BufferedImage scaled = createCompatibleImage(size, image);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Src);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                               RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING,
+                               RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, size, size, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    /**
+     * @param size Width and height of image
+     * @param source Image which will be drawn on it
+     * @return An empty image with the pixel layout of the screen, or a
+     *         general one if there is no screen
+     */
+    private static BufferedImage createCompatibleImage(int size,
+                                                       BufferedImage source) {
+        int transparency = source.getColorModel().getTransparency();
+        if (!GraphicsEnvironment.isHeadless()) {
+            GraphicsConfiguration screen = GraphicsEnvironment
+                    .getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice()
+                    .getDefaultConfiguration();
+            return screen.createCompatibleImage(size, size, transparency);
+        }
+        return new BufferedImage(size, size,
+                                 transparency == Transparency.OPAQUE
+                                 ? BufferedImage.TYPE_INT_RGB
+                                 : BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+
+    /**
+     * Cache an image, evicting the least recently used images until the
+     * cache fits
+     * @param key Key of image, see {@link #key(String, int)}
+     * @param image Prepared image
+     */
+    synchronized void put(String key, BufferedImage image) {
+        long size = sizeOf(image);
+        if (size > maxBytes) {
+            return; // would evict everything else
+        }
+
+        BufferedImage old = images.put(key, image);
+        if (old != null) {
+            bytes -= sizeOf(old);
+        }
+        bytes += size;
+
+        Iterator<BufferedImage> eldest = images.values().iterator();
+        while (bytes > maxBytes) {
+            bytes -= sizeOf(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    /**
+     * @return Number of bytes the cached images take up
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @param url Url of image
+     * @param size Size image is scaled to
+     * @return Key of the image in cache and table of downloads
+     */
+    static String key(String url, int size) {
+        return size + " " + url;
+    }
+
+    /**
+     * @param image A decoded image
+     * @return Number of bytes the image takes up, roughly
+     */
+    private static long sizeOf(BufferedImage image) {
+        return (long) image.getWidth() * image.getHeight() * BYTES_PER_PIXEL;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * File: NowCursor.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-27
+ */
+package model;
+
+import model.parser.EpisodeTable;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps track of which episodes of a loaded tableau have aired, and which
+ * one is on air, as time passes. Both are found by binary search on the
+ * start times, and a timer set to the next time an episode starts or
+ * ends moves the cursor, without loading the tableau again. Uses a
+ * listener to tell when the cursor has moved.
+ */
+public class NowCursor {
+
+    /**
+     * Listener for when an episode has started or ended
+     */
+    public interface NowChanged {
+        /**
+         * Returns the new position of the cursor in form of a method call
+         * to listener. Called on a background thread.
+         * @param channelID Channel id of the tableau
+         * @param aired Number of episodes at the start of the tableau
+         *              which have ended
+         * @param current Index of the episode on air, or the last one which
+         *                has started. -1 if none has started
+         */
+        void onNowChanged(int channelID, int aired, int current);
+    }
+
+    private final ScheduledThreadPoolExecutor timer;
+    private ScheduledFuture<?> next;
+    private volatile NowChanged nowChangedListener;
+    private EpisodeTable episodes = new EpisodeTable();
+    private int channelID = -1;
+    private int aired = 0;
+    private int current = -1;
+
+    public NowCursor() {
+        timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "now-cursor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Move the cursor to a newly loaded tableau. The listener is not
+     * called for the new position, only when it later changes.
+     * @param channelID Channel id of the tableau
+     * @param episodes Episodes of tableau, sorted by start time. Must not
+     *                 be changed
+     */
+    public synchronized void setEpisodes(int channelID,
+                                         EpisodeTable episodes) {
+        this.channelID = channelID;
+        this.episodes = episodes;
+        move(System.currentTimeMillis());
+    }
+
+    /**
+     * @return Number of episodes which have ended
+     */
+    public synchronized int getAired() {
+        return aired;
+    }
+
+    /**
+     * @return Index of episode on air, or the last one which has started.
+     *         -1 if none has started
+     */
+    public synchronized int getCurrent() {
+        return current;
+    }
+
+    /**
+     * Timer has gone off, move cursor and tell listener if it has moved
+     */
+    private void tick() {
+        int channel;
+        int newAired;
+        int newCurrent;
+        synchronized (this) {
+            int oldAired = aired;
+            int oldCurrent = current;
+            move(System.currentTimeMillis());
+            if (aired == oldAired && current == oldCurrent) {
+                return;
+            }
+            channel = channelID;
+            newAired = aired;
+            newCurrent = current;
+        }
+
+        NowChanged listener = nowChangedListener;
+        if (listener != null) {
+            listener.onNowChanged(channel, newAired, newCurrent);
+        }
+    }
+
+    /**
+     * Find position of cursor at now, and set timer to next time it moves
+     * @param now Current time in milliseconds since epoch
+     */
+    private void move(long now) {
+        long second = Math.floorDiv(now, 1000);
+        aired = aired(episodes, second);
+        current = episodes.indexAt(second);
+
+        if (next != null) {
+            next.cancel(false);
+            next = null;
+        }
+        long boundary = nextBoundary(episodes, second);
+        if (boundary != Long.MAX_VALUE) {
+            next = timer.schedule(this::tick, boundary * 1000 - now,
+                                  TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Number of episodes which have ended, episodes are assumed not to
+     * overlap
+     * @param episodes Episodes sorted by start time
+     * @param now Current time in epoch seconds
+     * @return Number of episodes at the start which have ended before now
+     */
+    static int aired(EpisodeTable episodes, long now) {
+        int index = episodes.indexAt(now);
+        if (index < 0) {
+            return 0;
+        }
+        return episodes.getEndEpochSecond(index) < now ? index + 1 : index;
+    }
+
+    /**
+     * Next time the cursor moves, when an episode starts or has ended.
+     * Also used to plan when the tableau itself might change.
+     * @param episodes Episodes sorted by start time
+     * @param now Current time in epoch seconds
+     * @return Epoch second of next move, or Long.MAX_VALUE if none
+     */
+    public static long nextBoundary(EpisodeTable episodes, long now) {
+        int index = episodes.indexAt(now);
+        long next = Long.MAX_VALUE;
+        if (index >= 0 && episodes.getEndEpochSecond(index) >= now) {
+            next = episodes.getEndEpochSecond(index) + 1; // has ended
+        }
+        if (index + 1 < episodes.size()) {
+            next = Math.min(next, episodes.getStartEpochSecond(index + 1));
+        }
+        return next;
+    }
+
+    /**
+     * Sets a listener for when the cursor moves. Only one listener can
+     * be set at a time. Remove existing listener by setting listener
+     * to null
+     * @param listener Listener to listen to cursor moves
+     */
+    public void setNowChangedListener(NowChanged listener) {
+        nowChangedListener = listener;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * File: RecordingInputStream.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-19
+ */
+package model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * InputStream which keeps a copy of every byte read through it, so a
+ * document can be parsed while downloading and still be kept afterwards.
+ */
+class RecordingInputStream extends FilterInputStream {
+
+    private final ByteArrayOutputStream recording =
+            new ByteArrayOutputStream(16 * 1024);
+
+    /**
+     * @param in Stream to read from
+     */
+    RecordingInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            recording.write(b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            recording.write(b, off, read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] skipped = new byte[(int) Math.min(n, 8192)];
+        int read = read(skipped, 0, skipped.length);
+        return Math.max(read, 0);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false; // reset would record bytes twice
+    }
+
+    /**
+     * @return Copy of all bytes read so far
+     */
+    byte[] toByteArray() {
+        return recording.toByteArray();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * File: SingleFlight.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-26
+ */
+package model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Table of the downloads in flight, so that callers asking for the same
+ * resource at the same time share one download instead of starting one
+ * each. Each caller gets a future of its own. Cancelling it only lets go of
+ * the download for that caller; the download itself is cancelled once no
+ * caller is waiting for it anymore. Downloads leave the table when done,
+ * so the next caller after that starts a new one.
+ *
+ * Thread-safe.
+ * @param <K> Key of a resource, e.g. its url
+ * @param <V> Result of a download
+ */
+final class SingleFlight<K, V> {
+
+    /**
+     * A download in flight
+     */
+    private static final class Flight<V> {
+        final CompletableFuture<V> result;
+        int callers = 0;
+
+        Flight(CompletableFuture<V> result) {
+            this.result = result;
+        }
+    }
+
+    private final Map<K, Flight<V>> flights = new HashMap<>();
+
+    /**
+     * Join the download of a resource, or start it if not in flight
+     * @param key Key of the resource
+     * @param start Starts the download, only called if not in flight
+     * @return Future of the result for this caller. Cancelling it does not
+     *         cancel the download while other callers are waiting for it.
+     */
+    CompletableFuture<V> join(K key, Supplier<CompletableFuture<V>> start) {
+        Flight<V> flight;
+        boolean started = false;
+        synchronized (flights) {
+            flight = flights.get(key);
+            // a done flight may not have been removed yet, don't reuse it
+            if (flight == null || flight.result.isDone()) {
+                flight = new Flight<>(start.get());
+                flights.put(key, flight);
+                started = true;
+            }
+            flight.callers++;
+        }
+
+        Flight<V> joined = flight;
+        if (started) {
+            joined.result.whenComplete((result, error) -> {
+                synchronized (flights) {
+                    flights.remove(key, joined);
+                }
+            });
+        }
+
+        CompletableFuture<V> caller = new CompletableFuture<>();
+        joined.result.whenComplete((result, error) -> {
+            if (error != null) {
+                caller.completeExceptionally(error);
+            } else {
+                caller.complete(result);
+            }
+        });
+        caller.whenComplete((result, error) -> {
+            if (caller.isCancelled()) {
+                release(key, joined);
+            }
+        });
+        return caller;
+    }
+
+    /**
+     * @param key Key of a resource
+     * @return True if a download of the resource is in flight
+     */
+    boolean isInFlight(K key) {
+        synchronized (flights) {
+            return flights.containsKey(key);
+        }
+    }
+
+    /**
+     * A caller no longer waits for a download, cancel it if it was the
+     * last one
+     */
+    private void release(K key, Flight<V> flight) {
+        if (flight.result.isDone()) {
+            return; // nothing left to cancel
+        }
+        boolean cancel;
+        synchronized (flights) {
+            flight.callers--;
+            cancel = flight.callers == 0;
+            if (cancel) {
+                flights.remove(key, flight);
+            }
+        }
+        if (cancel) {
+            flight.result.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * File: SnapshotStore.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-29
+ */
+package model;
+
+import model.parser.Channel;
+import model.parser.Episode;
+import model.parser.EpisodeTable;
+import model.parser.StringTable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps a snapshot of the last loaded channels, the last viewed tableaux
+ * and the selected channel on disk, so the next start can show them at
+ * once and offline, before anything has been downloaded. The snapshot is
+ * a small versioned binary file, which is read whole into memory. It is
+ * not memory-mapped, as a file which is still mapped can't be replaced on
+ * all platforms, e.g. Windows. A snapshot of another version, or one which
+ * can't be read, is ignored.
+ *
+ * The file has the layout:
+ * <pre>
+ * magic, version            int, int
+ * selected channel id       int
+ * channels                  int count, then per channel:
+ *                           id int, name, image, color, tagline,
+ *                           siteurl, channeltype
+ * tableaux                  int count, then per tableau:
+ *                           channel id int, date long (epoch day),
+ *                           int count, then per episode:
+ *                           episodeid int, start long, end long,
+ *                           programid int, channelid int, title,
+ *                           programName, channelName, subtitle,
+ *                           description, url, imageurl, imageurltemplate
+ * </pre>
+ * where strings are an int length followed by UTF-8 bytes, and a length
+ * of -1 is null.
+ */
+public class SnapshotStore {
+
+    private static final int MAGIC = 0x53525253; // "SRRS"
+    private static final int VERSION = 1;
+    private static final int NULL_STRING = -1;
+
+    /**
+     * A tableau kept in the snapshot, with all fields of its episodes
+     */
+    public static final class SavedTableau {
+        public final int channelID;
+        public final LocalDate date;
+        public final EpisodeTable episodes;
+
+        public SavedTableau(int channelID, LocalDate date,
+                            EpisodeTable episodes) {
+            this.channelID = channelID;
+            this.date = date;
+            this.episodes = episodes;
+        }
+    }
+
+    /**
+     * What was on screen when the snapshot was saved
+     */
+    public static final class Snapshot {
+        public final List<Channel> channels;
+        public final int selectedChannelID;
+        public final List<SavedTableau> tableaux;
+
+        public Snapshot(List<Channel> channels, int selectedChannelID,
+                        List<SavedTableau> tableaux) {
+            this.channels = Collections.unmodifiableList(channels);
+            this.selectedChannelID = selectedChannelID;
+            this.tableaux = Collections.unmodifiableList(tableaux);
+        }
+    }
+
+    private final Path file;
+
+    /**
+     * @param file File to keep snapshot in
+     */
+    public SnapshotStore(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @return File in the users home directory to keep snapshot in
+     */
+    public static Path defaultPath() {
+        return Paths.get(System.getProperty("user.home"), ".radioinfo",
+                         "snapshot.bin");
+    }
+
+    /**
+     * Reads the last saved snapshot
+     * @return The snapshot, or null if none saved or it could not be read
+     */
+    public Snapshot load() {
+        try {
+            return read(ByteBuffer.wrap(Files.readAllBytes(file)));
+
+        } catch (IOException | BufferUnderflowException
+                 | IllegalArgumentException | DateTimeException e) {
+            return null; // no snapshot, or not one we can read
+        }
+    }
+
+    /**
+     * Saves a snapshot, replacing the last one. The snapshot is written
+     * to a new file which is then moved in place, so a snapshot is never
+     * left half written.
+     * @param snapshot Snapshot to save
+     * @throws IOException If snapshot could not be written
+     */
+    public void save(Snapshot snapshot) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, "snapshot", ".tmp");
+
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(
+                            Files.newOutputStream(temporary)))) {
+                write(out, snapshot);
+            }
+            try {
+                Files.move(temporary, file,
+                           StandardCopyOption.ATOMIC_MOVE,
+                           StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file,
+                           StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void write(DataOutputStream out, Snapshot snapshot)
+                                                           throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(snapshot.selectedChannelID);
+
+        out.writeInt(snapshot.channels.size());
+        for (Channel channel : snapshot.channels) {
+            out.writeInt(channel.id);
+            writeString(out, channel.name);
+            writeString(out, channel.image);
+            writeString(out, channel.color);
+            writeString(out, channel.tagline);
+            writeString(out, channel.siteurl);
+            writeString(out, channel.channeltype);
+        }
+
+        out.writeInt(snapshot.tableaux.size());
+        for (SavedTableau tableau : snapshot.tableaux) {
+            EpisodeTable episodes = tableau.episodes;
+            out.writeInt(tableau.channelID);
+            out.writeLong(tableau.date.toEpochDay());
+            out.writeInt(episodes.size());
+            for (int i = 0; i < episodes.size(); i++) {
+                Episode episode = episodes.toEpisode(i);
+                out.writeInt(episode.episodeid);
+                out.writeLong(episode.startEpochSecond);
+                out.writeLong(episode.endEpochSecond);
+                out.writeInt(episode.programid);
+                out.writeInt(episode.channelid);
+                writeString(out, episode.title);
+                writeString(out, episode.programName);
+                writeString(out, episode.channelName);
+                writeString(out, episode.subtitle);
+                writeString(out, episode.description);
+                writeString(out, episode.url);
+                writeString(out, episode.imageurl);
+                writeString(out, episode.imageurltemplate);
+            }
+        }
+    }
+
+    private static Snapshot read(ByteBuffer in) {
+        if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+            return null;
+        }
+        int selectedChannelID = in.getInt();
+
+        int channelCount = count(in);
+        List<Channel> channels = new ArrayList<>(channelCount);
+        for (int i = 0; i < channelCount; i++) {
+            Channel channel = new Channel();
+            channel.id = in.getInt();
+            channel.name = readString(in);
+            channel.image = readString(in);
+            channel.color = readString(in);
+            channel.tagline = readString(in);
+            channel.siteurl = readString(in);
+            channel.channeltype = readString(in);
+            channels.add(channel);
+        }
+
+        // share names with the tableaux loaded later
+        StringTable strings = StringTable.shared();
+        int tableauCount = count(in);
+        List<SavedTableau> tableaux = new ArrayList<>(tableauCount);
+        for (int i = 0; i < tableauCount; i++) {
+            int channelID = in.getInt();
+            LocalDate date = LocalDate.ofEpochDay(in.getLong());
+            int episodeCount = count(in);
+            EpisodeTable episodes = new EpisodeTable(episodeCount);
+            for (int j = 0; j < episodeCount; j++) {
+                Episode episode = new Episode();
+                episode.episodeid = in.getInt();
+                episode.startEpochSecond = in.getLong();
+                episode.endEpochSecond = in.getLong();
+                episode.programid = in.getInt();
+                episode.channelid = in.getInt();
+                episode.title = strings.canonical(readString(in));
+                episode.programName = strings.canonical(readString(in));
+                episode.channelName = strings.canonical(readString(in));
+                episode.subtitle = readString(in);
+                episode.description = readString(in);
+                episode.url = readString(in);
+                episode.imageurl = readString(in);
+                episode.imageurltemplate = readString(in);
+                episodes.add(episode);
+            }
+            tableaux.add(new SavedTableau(channelID, date, episodes));
+        }
+
+        if (in.hasRemaining()) {
+            return null; // not written by this version
+        }
+        return new Snapshot(channels, selectedChannelID, tableaux);
+    }
+
+    private static void writeString(DataOutputStream out, String value)
+                                                           throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == NULL_STRING) {
+            return null;
+        }
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("Corrupt snapshot");
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a count, which can't be larger than the bytes left
+     */
+    private static int count(ByteBuffer in) {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining()) {
+            throw new IllegalArgumentException("Corrupt snapshot");
+        }
+        return count;
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * File: TableauCache.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-23
+ */
+package model;
+
+import model.parser.EpisodeTable;
+import model.parser.TableauDocument;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * TableauCache keeps the latest loaded tableaux in memory, per channel and
+ * date. It holds a bounded number of tableaux, and when full the least
+ * recently used one is evicted. A tableau is fresh for a limited time after
+ * it was loaded, after which {@link #get(int, LocalDate)} treats it as
+ * missing. Expired tableaux are kept until evicted, so they can still be
+ * reused if the server says they have not been modified, see
+ * {@link #peek(int, LocalDate)}.
+ *
+ * Thread-safe.
+ */
+public class TableauCache {
+
+    /**
+     * A cached tableau
+     */
+    public static final class Entry {
+        /**
+         * Episodes of the tableau, never changed once cached
+         */
+        public final EpisodeTable episodes;
+        /**
+         * Document the episodes were parsed from, or null if episodes
+         * already have all fields
+         */
+        public final TableauDocument document;
+        /**
+         * Url tableau was loaded from, or null if it should not be reused
+         * when url has not been modified
+         */
+        public final String source;
+        final long loadedAt; // milliseconds, according to cache clock
+
+        private Entry(EpisodeTable episodes, TableauDocument document,
+                      String source, long loadedAt) {
+            this.episodes = episodes;
+            this.document = document;
+            this.source = source;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * Visitor of the cached tableaux
+     */
+    public interface EntryVisitor {
+        /**
+         * Called once for each cached tableau
+         * @param channelID Channel of tableau
+         * @param date Date of tableau
+         * @param entry The cached tableau
+         */
+        void visit(int channelID, LocalDate date, Entry entry);
+    }
+
+    /**
+     * Channel and date of a tableau
+     */
+    private static final class Key {
+        final int channelID;
+        final LocalDate date;
+
+        Key(int channelID, LocalDate date) {
+            this.channelID = channelID;
+            this.date = date;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return channelID == key.channelID && date.equals(key.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(channelID, date);
+        }
+    }
+
+    private final Map<Key, Entry> entries;
+    private final long timeToLive;
+    private final LongSupplier clock;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * @param maxEntries Number of tableaux to keep at most
+     * @param timeToLive Milliseconds a tableau is fresh after loaded
+     */
+    public TableauCache(int maxEntries, long timeToLive) {
+        this(maxEntries, timeToLive, System::currentTimeMillis);
+    }
+
+    /**
+     * @param maxEntries Number of tableaux to keep at most
+     * @param timeToLive Milliseconds a tableau is fresh after loaded
+     * @param clock Current time in milliseconds
+     */
+    TableauCache(int maxEntries, long timeToLive, LongSupplier clock) {
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Get a fresh tableau. Counts as a hit if found, otherwise a miss.
+     * @param channelID Channel of tableau
+     * @param date Date of tableau
+     * @return The tableau, or null if not cached or no longer fresh
+     */
+    public synchronized Entry get(int channelID, LocalDate date) {
+        Entry entry = entries.get(new Key(channelID, date));
+        if (entry == null || !isFresh(entry)) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry;
+    }
+
+    /**
+     * Get a tableau whether it is fresh or not. Does not count as a hit
+     * or miss.
+     * @param channelID Channel of tableau
+     * @param date Date of tableau
+     * @return The tableau, or null if not cached
+     */
+    public synchronized Entry peek(int channelID, LocalDate date) {
+        return entries.get(new Key(channelID, date));
+    }
+
+    /**
+     * Cache a tableau which has just been loaded
+     * @param channelID Channel of tableau
+     * @param date Date of tableau
+     * @param episodes Episodes of the tableau, must not be changed after
+     * @param document Document the episodes were parsed from, or null
+     * @param source Url tableau was loaded from, or null
+     * @return The cached tableau
+     */
+    public synchronized Entry put(int channelID, LocalDate date,
+                                  EpisodeTable episodes,
+                                  TableauDocument document, String source) {
+        Entry entry = new Entry(episodes, document, source,
+                                clock.getAsLong());
+        entries.put(new Key(channelID, date), entry);
+        return entry;
+    }
+
+    /**
+     * Cache a tableau loaded earlier, e.g. restored from disk. It is not
+     * fresh, so it is handed over at once but also downloaded again.
+     * @param channelID Channel of tableau
+     * @param date Date of tableau
+     * @param episodes Episodes of the tableau, must not be changed after
+     * @return The cached tableau
+     */
+    public synchronized Entry restore(int channelID, LocalDate date,
+                                      EpisodeTable episodes) {
+        Entry entry = new Entry(episodes, null, null,
+                                clock.getAsLong() - timeToLive);
+        entries.put(new Key(channelID, date), entry);
+        return entry;
+    }
+
+    /**
+     * Visit all cached tableaux, from least to most recently used. Does
+     * not count as a use. The visitor is called while the cache is
+     * locked, and should not use the cache.
+     * @param visitor Visitor to call for each tableau
+     */
+    public synchronized void forEach(EntryVisitor visitor) {
+        for (Map.Entry<Key, Entry> entry : entries.entrySet()) {
+            Key key = entry.getKey();
+            visitor.visit(key.channelID, key.date, entry.getValue());
+        }
+    }
+
+    /**
+     * @param entry A cached tableau
+     * @return True if tableau was loaded less than time to live ago
+     */
+    public boolean isFresh(Entry entry) {
+        return clock.getAsLong() - entry.loadedAt < timeToLive;
+    }
+
+    /**
+     * @return Number of tableaux in cache, fresh or not
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return Number of times {@link #get(int, LocalDate)} found a fresh
+     *         tableau
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return Number of times {@link #get(int, LocalDate)} found no fresh
+     *         tableau
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * File: TableauPrefetcher.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-24
+ */
+package model;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TableauPrefetcher loads tableaux the user is likely to switch to into
+ * the cache of a {@link TableauUpdater}, so they can be shown without
+ * waiting for the network. Runs on a few low priority daemon threads, and
+ * waits while the updater is loading a tableau for the user. Prefetches
+ * already running are cancelled by the updater when the user asks for
+ * another tableau, so they never compete with what the user asked for.
+ * Also keeps count of which channels the user selects, to know which are
+ * likely.
+ */
+public class TableauPrefetcher {
+
+    static final int MAX_CONCURRENT = 2; // requests
+    static final int MAX_QUEUED = 64;
+    private static final long KEEP_ALIVE = 30; // seconds
+
+    private final TableauUpdater updater;
+    private final ThreadPoolExecutor executor;
+    private final Set<Integer> pending = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, Integer> selections =
+            new ConcurrentHashMap<>();
+
+    /**
+     * @param updater Updater whose cache should be filled
+     */
+    public TableauPrefetcher(TableauUpdater updater) {
+        this.updater = updater;
+        executor = new ThreadPoolExecutor(
+                MAX_CONCURRENT, MAX_CONCURRENT, KEEP_ALIVE, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(MAX_QUEUED), runnable -> {
+                    Thread thread = new Thread(runnable, "tableau-prefetch");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Load the tableaux of channels in the background, unless already
+     * fresh in the cache. Channels already waiting to be loaded are not
+     * added again, and channels which do not fit in the queue are skipped.
+     * @param channelIDs Ids of channels, most likely first
+     */
+    public void prefetch(Collection<Integer> channelIDs) {
+        for (int id : channelIDs) {
+            if (pending.add(id)) {
+                try {
+                    executor.execute(() -> load(id));
+                } catch (RejectedExecutionException e) {
+                    pending.remove(id); // queue is full
+                }
+            }
+        }
+    }
+
+    /**
+     * Should be called when the user selects a channel. Prefetches the
+     * channels selected most often.
+     * @param channelID Id of selected channel
+     * @param count Number of most selected channels to prefetch
+     */
+    public void onChannelSelected(int channelID, int count) {
+        selections.merge(channelID, 1, Integer::sum);
+        prefetch(getMostSelected(count));
+    }
+
+    /**
+     * @param count Maximum number of channels to return
+     * @return Ids of the channels the user has selected most often, most
+     *         selected first
+     */
+    public List<Integer> getMostSelected(int count) {
+        List<Map.Entry<Integer, Integer>> counts =
+                new ArrayList<>(selections.entrySet());
+        counts.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < Math.min(count, counts.size()); i++) {
+            ids.add(counts.get(i).getKey());
+        }
+        return ids;
+    }
+
+    /**
+     * Load one tableau, after any load for the user has finished
+     * @param id Id of channel
+     */
+    private void load(int id) {
+        try {
+            updater.awaitIdle();
+            updater.prefetch(id);
+        } catch (XMLStreamException | IOException | RuntimeException e) {
+            /* result: not prefetched, will be loaded when selected */
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pending.remove(id);
+        }
+    }
+}
@@ -6,49 +6,141 @@
 package model;
 
 import model.parser.Episode;
+import model.parser.EpisodeTable;
+import model.parser.ParallelTableauParser;
+import model.parser.StringTable;
+import model.parser.TableauDocument;
 import model.parser.TableauParser;
+import model.parser.UncheckedXMLStreamException;
 import model.srurl.SRAPITableau;
 
 import javax.xml.stream.XMLStreamException;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
  * TableauUpdater takes care of downloading new tableau for selected
- * channel. Will run on its own thread and therefore uses a listener to
- * return information. Will only run one thread at a time, and will only
- * run thread when actually downloading, i.e. no waiting background thread.
+ * channel. Will run on the shared {@link FetchEngine} and therefore uses a
+ * listener to return information. Will only run one download at a time.
+ * Episodes are also handed over in batches while the tableau is still
+ * being downloaded, see {@link EpisodesParsed}. Recently loaded tableaux
+ * are kept per channel in a {@link TableauCache}, and are handed over
+ * straight from memory when updating to them again. A cached tableau which
+ * is no longer fresh is still handed over at once when switching to its
+ * channel, and is then revalidated in the background. The listener is
+ * only called a second time if the tableau turns out to have changed.
+ * Downloads are shared by url, so updating and prefetching the same
+ * tableau at the same time only downloads and parses it once. Prefetches
+ * of other tableaux are cancelled when an update has to download, so
+ * they never hold up what the user asked for.
  */
 public class TableauUpdater implements Runnable {
 
+    private static final int BATCH_SIZE = 32;
+    private static final int CACHE_SIZE = 16; // tableaux
+    private static final long CACHE_TIME_TO_LIVE = 2 * 60 * 1000; // ms
+
     /**
      * Listener for when a tableau has loaded
      */
     public interface TableauLoaded {
         /**
-         * Returns the tableau in form of a method call to listener
+         * Returns the tableau in form of a method call to listener. May be
+         * called twice for one update, first with a cached tableau and then
+         * with the downloaded one if it differs.
          * @param channelID Channel id for tableau loaded. Will be -1 if
          *                  could not read from xml/stream
          * @param episodes Episodes within the tableau. Will be null if
          *                  could not read from xml/stream
          */
-        void onTableauLoaded(int channelID, List<Episode> episodes);
+        void onTableauLoaded(int channelID, EpisodeTable episodes);
+    }
+
+    /**
+     * Listener for episodes parsed so far, while a tableau is loading
+     */
+    public interface EpisodesParsed {
+        /**
+         * Returns a batch of episodes in form of a method call to listener.
+         * Batches arrive in order, and are always followed by a call to
+         * {@link TableauLoaded#onTableauLoaded(int, EpisodeTable)} with the
+         * whole tableau, unless download fails or is aborted.
+         * @param channelID Channel id for tableau being loaded
+         * @param offset Index of the first episode of the batch
+         *               within the tableau
+         * @param episodes The tableau parsed so far, where the batch is the
+         *                 episodes from offset to the end. The table is
+         *                 still being filled, and should only be read
+         *                 during the call.
+         */
+        void onEpisodesParsed(int channelID, int offset,
+                              EpisodeTable episodes);
+    }
+
+    /**
+     * Makes the url of the tableau of a channel, so that tests can serve
+     * tableaux of their own
+     */
+    interface TableauUrl {
+        /**
+         * @param id Id of channel
+         * @param date Date of tableau
+         * @return Url of the whole tableau of the channel for date
+         * @throws MalformedURLException If no url could be made
+         */
+        URL of(int id, LocalDate date) throws MalformedURLException;
     }
 
-    private Thread updater;
+    private final HttpTransport transport;
+    private final TableauUrl urls;
+    private volatile CompletableFuture<Void> updating;
     private TableauLoaded tableauLoadedListener;
+    private EpisodesParsed episodesParsedListener;
     private AtomicInteger channelID = new AtomicInteger(0);
     private AtomicBoolean idChanged = new AtomicBoolean(false);
-    private CopyOnWriteArrayList<Episode> cachedEpisodes =
-            new CopyOnWriteArrayList<>();
+    private volatile boolean parallelParsing = false;
+    private volatile TableauParser.Projection projection =
+            TableauParser.Projection.FULL;
+    private final TableauCache cache =
+            new TableauCache(CACHE_SIZE, CACHE_TIME_TO_LIVE);
+    private volatile TableauCache.Entry current; // last loaded tableau
+    private final SingleFlight<String, TableauCache.Entry> flights =
+            new SingleFlight<>(); // downloads in flight by url
+    private final Map<Integer, CompletableFuture<TableauCache.Entry>>
+            prefetching = new ConcurrentHashMap<>(); // by channel id
+    private final Object idle = new Object(); // notified when update done
+
+    /**
+     * Creates an updater which downloads tableaux from the SR API
+     */
+    public TableauUpdater() {
+        this(HttpTransport.shared(), TableauUpdater::tableauUrl);
+    }
+
+    /**
+     * Creates an updater which downloads tableaux from other urls, for
+     * tests
+     * @param transport Transport to download with
+     * @param urls Urls of the tableaux
+     */
+    TableauUpdater(HttpTransport transport, TableauUrl urls) {
+        this.transport = transport;
+        this.urls = urls;
+    }
 
     /**
      * Should be set before running {@link #update()}, otherwise update
@@ -61,32 +153,102 @@ public class TableauUpdater implements Runnable {
     }
 
     /**
-     * Will download a new tableau for the specified channel id,
-     * on its own thread. Only one thread will run at a time. Calling
-     * this method when update() is already downloading, and no new id
-     * is set, this method will have no effect. Calling this method
+     * Parse whole tableau at once on multiple threads, instead of while
+     * downloading. Only worth it for very large tableaux, as no episodes
+     * are handed over to {@link EpisodesParsed} until all are parsed.
+     * @param parallel True to parse in parallel, false (default) to parse
+     *                 while downloading
+     */
+    public void setParallelParsing(boolean parallel) {
+        parallelParsing = parallel;
+    }
+
+    /**
+     * Which fields of the episodes to parse. With
+     * {@link TableauParser.Projection#SUMMARY} the episodes handed to the
+     * listeners only have episodeid, title and times, and the rest of the
+     * fields are parsed when asked for through
+     * {@link #getEpisodeDetails(EpisodeTable, int)}.
+     * @param projection Which fields to parse, default is all
+     */
+    public void setProjection(TableauParser.Projection projection) {
+        this.projection = projection;
+    }
+
+    /**
+     * Will download a new tableau for the specified channel id, on the
+     * shared {@link FetchEngine}. Only one download will run at a time.
+     * Calling this method when update() is already downloading, and no
+     * new id is set, this method will have no effect. Calling this method
      * when already downloading but a new id is set, old download will
-     * close and a new download will begin with the new id.
+     * be cancelled, closing its connection, and a new download will begin
+     * with the new id.
+     * @return Future completed when the tableau has been handed over to
+     *         the listener. Completed exceptionally if the download has
+     *         failed, e.g. to retry later
      */
-    public void update() {
-        if (updater == null || !updater.isAlive()) {
-            startNewUpdateThread();
+    public CompletableFuture<Void> update() {
+        return update(false);
+    }
+
+    /**
+     * Same as {@link #update()}, but the tableau is always asked for from
+     * the server, also when a fresh one is cached. Should be used when
+     * the user asks for a refresh. Has no effect if an update of the same
+     * channel is already running.
+     */
+    public CompletableFuture<Void> refresh() {
+        return update(true);
+    }
+
+    /**
+     * See {@link #update()}
+     * @param skipCache True if a fresh cached tableau should not be used
+     *                  by an update started by this call
+     * @return Future of the running update
+     */
+    private synchronized CompletableFuture<Void> update(boolean skipCache) {
+        if (updating == null || updating.isDone()) {
+            startUpdate(skipCache);
 
         } else if (idChanged.get()) {
             // is already updating and channelID has been changed
-            updater.interrupt(); // close current updating thread
+            updating.cancel(true); // close current download
 
-            startNewUpdateThread();
+            startUpdate(skipCache);
         }
+        return updating;
     }
 
     /**
-     * Helper method for starting a new download thread.
+     * Helper method for starting a new download. Looking in the cache is
+     * done on the shared {@link FetchEngine}, and the download itself is
+     * joined through {@link #download(int, LocalDate, TableauCache.Entry,
+     * boolean)}, so that no engine thread waits for another.
+     * @param skipCache True if a fresh cached tableau should not be used
      */
-    private void startNewUpdateThread() {
-        updater = new Thread(this);
-        updater.start();
+    private void startUpdate(boolean skipCache) {
         idChanged.set(false);
+        CompletableFuture<Void> update = new CompletableFuture<>();
+        CompletableFuture<Void> started =
+                FetchEngine.shared().submit(fetch -> {
+                    update(update, skipCache);
+                    return null;
+                });
+        update.whenComplete((result, error) -> {
+            if (update.isCancelled()) {
+                started.cancel(true);
+            }
+            synchronized (idle) {
+                idle.notifyAll();
+            }
+        });
+        started.whenComplete((result, error) -> {
+            if (error != null) {
+                update.completeExceptionally(error);
+            }
+        });
+        updating = update;
     }
 
     /**
@@ -97,54 +259,439 @@ public class TableauUpdater implements Runnable {
      */
     @Override
     public void run() {
-        SRAPITableau api = new SRAPITableau(channelID.get());
-        api.disablePagination();
-        api.setDate(LocalDate.now());
+        CompletableFuture<Void> future = update();
         try {
-            URL url = api.build();
-            TableauParser tableauParser = new TableauParser(url.openStream());
+            future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | CancellationException e) {
+            /* result: handed over to listener, or not at all */
+        }
+    }
 
-            // Must always test to see if interrupted before continuing
-            if (Thread.currentThread().isInterrupted()) {
-                return;
+    /**
+     * Hands over a cached tableau via the listener, and starts, or joins,
+     * a download of it if not fresh
+     * @param update Future of the update, completed when done
+     * @param skipCache True if a fresh cached tableau should not be used
+     */
+    private void update(CompletableFuture<Void> update, boolean skipCache) {
+        int id = channelID.get();
+        LocalDate date = LocalDate.now();
+
+        // A recently loaded tableau is shown without downloading it again
+        TableauCache.Entry cached = skipCache ? null : cache.get(id, date);
+        if (cached != null) {
+            current = cached;
+            if (tableauLoadedListener != null && !update.isDone()) {
+                tableauLoadedListener.onTableauLoaded(id, cached.episodes);
             }
+            update.complete(null);
+            return;
+        }
 
-            List<Episode> episodes = tableauParser.parse();
-            cacheEpisodes(episodes);
+        // Switching to a tableau which is cached but not fresh, show it
+        // while checking if it has changed
+        TableauCache.Entry stale = cache.peek(id, date);
+        boolean served = stale != null && stale != current;
+        if (served && !update.isDone()) {
+            current = stale;
+            if (tableauLoadedListener != null) {
+                tableauLoadedListener.onTableauLoaded(id, stale.episodes);
+            }
+        }
 
-            if (Thread.currentThread().isInterrupted()) {
-                return;
+        // the user is waiting for this download, not for prefetches
+        cancelPrefetches(id);
+        CompletableFuture<TableauCache.Entry> download =
+                download(id, date, stale, !served);
+        update.whenComplete((result, error) -> {
+            if (update.isCancelled()) {
+                download.cancel(true); // only lets go of shared download
+            }
+        });
+        download.whenComplete((loaded, error) -> {
+            if (update.isDone()) {
+                return; // cancelled
+            }
+            try {
+                loaded(id, stale, served, loaded, error);
+            } finally {
+                if (error != null) {
+                    update.completeExceptionally(error);
+                } else {
+                    update.complete(null);
+                }
             }
+        });
+    }
 
-            if (tableauLoadedListener != null) {
-               tableauLoadedListener.onTableauLoaded(channelID.get(), episodes);
+    /**
+     * Hands over a downloaded tableau via the listener
+     * @param id Id of channel
+     * @param stale Cached tableau which was not fresh, or null
+     * @param served True if stale tableau has already been handed over
+     * @param loaded The downloaded tableau, or null if cancelled
+     * @param error Why download failed, or null
+     */
+    private void loaded(int id, TableauCache.Entry stale, boolean served,
+                        TableauCache.Entry loaded, Throwable error) {
+        if (error != null) {
+            // could not download or read tableau, keep showing stale
+            // tableau if any, also when it was handed over by an earlier
+            // update, e.g. restored from disk while offline
+            boolean shown = served || (stale != null && stale == current);
+            if (!shown && !(error instanceof CancellationException)
+                    && tableauLoadedListener != null) {
+                tableauLoadedListener.onTableauLoaded(-1, null);
+            }
+            return;
+        }
+        if (loaded == null) {
+            return;
+        }
+
+        current = loaded;
+
+        if (served && loaded.episodes.equals(stale.episodes)) {
+            return; // already handed over
+        }
+
+        if (tableauLoadedListener != null) {
+            tableauLoadedListener.onTableauLoaded(id, loaded.episodes);
+        }
+    }
+
+    /**
+     * Loads a tableau into the cache in the background, without calling
+     * any listeners, unless a fresh one is already cached. Meant for
+     * prefetching tableaux the user is likely to switch to. Blocks until
+     * loaded. Joins the download if the tableau is already being
+     * downloaded. Gives up without loading anything if an update of
+     * another channel needs to download, see {@link #update()}.
+     * @param id Id of channel to load tableau of
+     * @throws XMLStreamException If XML Stream encountered error
+     * @throws IOException If tableau could not be downloaded
+     */
+    public void prefetch(int id) throws XMLStreamException, IOException {
+        LocalDate date = LocalDate.now();
+        TableauCache.Entry cached = cache.peek(id, date);
+        if (cached != null && cache.isFresh(cached)) {
+            return;
+        }
+
+        CompletableFuture<TableauCache.Entry> download =
+                download(id, date, cached, false);
+        prefetching.put(id, download);
+        if (isUpdating() && channelID.get() != id) {
+            download.cancel(true); // update started while joining
+        }
+        try {
+            download.get();
+        } catch (InterruptedException e) {
+            download.cancel(true);
+            Thread.currentThread().interrupt();
+        } catch (CancellationException e) {
+            /* result: nothing loaded */
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof XMLStreamException) {
+                throw (XMLStreamException) cause;
+            } else if (cause instanceof UncheckedXMLStreamException) {
+                throw ((UncheckedXMLStreamException) cause).getCause();
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            prefetching.remove(id, download);
+        }
+    }
+
+    /**
+     * Cancel running prefetches, except of the channel being updated. A
+     * download shared with an update is not cancelled, only let go of.
+     * @param id Id of channel being updated
+     */
+    private void cancelPrefetches(int id) {
+        prefetching.forEach((channel, download) -> {
+            if (channel != id) {
+                download.cancel(true);
+            }
+        });
+    }
+
+    /**
+     * Starts a download of a tableau, or joins it if it is already being
+     * downloaded, e.g. by a prefetch or an earlier update. Callers asking
+     * for the same url at the same time share one download and parse.
+     * @param id Id of channel
+     * @param date Date of tableau
+     * @param stale Cached tableau which is no longer fresh, or null
+     * @param notify True if batches of episodes should be handed over
+     *               while parsing. Only has effect if the download is
+     *               started by this call
+     * @return Future of the cached tableau, or of null if cancelled.
+     *         Cancelling it only cancels the download if no one else is
+     *         waiting for it.
+     */
+    private CompletableFuture<TableauCache.Entry> download(
+            int id, LocalDate date, TableauCache.Entry stale,
+            boolean notify) {
+        URL url;
+        try {
+            url = urls.of(id, date);
+        } catch (MalformedURLException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return flights.join(url.toString(), () ->
+                FetchEngine.shared().submit(
+                        fetch -> load(id, url, date, stale, notify, fetch)));
+    }
+
+    /**
+     * @param id Id of channel
+     * @param date Date of tableau
+     * @return Url of the whole tableau of the channel for date
+     * @throws MalformedURLException If no url could be made
+     */
+    private static URL tableauUrl(int id, LocalDate date)
+                                              throws MalformedURLException {
+        SRAPITableau api = new SRAPITableau(id);
+        api.disablePagination();
+        api.setDate(date);
+        return api.build();
+    }
+
+    /**
+     * Returns true while {@link #update()} is loading a tableau for the
+     * user, so that background work can wait for it to finish
+     * @return True if updating
+     */
+    public boolean isUpdating() {
+        CompletableFuture<Void> future = updating;
+        return future != null && !future.isDone();
+    }
+
+    /**
+     * Blocks while {@link #update()} is loading a tableau for the user, so
+     * that background work can start as soon as it has finished
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public void awaitIdle() throws InterruptedException {
+        synchronized (idle) {
+            while (isUpdating()) {
+                idle.wait();
             }
+        }
+    }
+
+    /**
+     * @param fetch Handle of a download
+     * @return True if the download has been cancelled, and should stop
+     */
+    private static boolean isCancelled(FetchEngine.Fetch fetch) {
+        return fetch.isCancelled() || Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Downloads and parses a tableau, and puts it in the cache
+     * @param id Id of channel
+     * @param url Url of tableau
+     * @param date Date of tableau
+     * @param stale Cached tableau which is no longer fresh, or null. Is
+     *              reused if server says it has not been modified
+     * @param notify True if batches of episodes should be handed over
+     *               while parsing, see {@link EpisodesParsed}
+     * @param fetch Handle of the download, streams are registered with it
+     * @return The cached tableau, or null if cancelled
+     * @throws XMLStreamException If XML Stream encountered error
+     * @throws IOException If tableau could not be downloaded
+     */
+    private TableauCache.Entry load(int id, URL url, LocalDate date,
+                                    TableauCache.Entry stale, boolean notify,
+                                    FetchEngine.Fetch fetch)
+                                      throws XMLStreamException, IOException {
+        String source = url.toString();
+        boolean summary = projection == TableauParser.Projection.SUMMARY;
+        EpisodeTable episodes;
+        TableauDocument document = null;
+
+        // only ask if modified when tableau from url is still cached
+        boolean hasStale = stale != null && source.equals(stale.source);
+        try (HttpTransport.Conditional content = fetch.register(
+                transport.openIfModified(url, hasStale))) {
+            // Must always test to see if cancelled before continuing
+            if (isCancelled(fetch)) {
+                return null;
+            }
+
+            InputStream stream = content.getStream();
+            if (stream == null) {
+                // not modified, no need to parse it again
+                episodes = stale.episodes;
+                document = stale.document;
+            } else if (parallelParsing) {
+                byte[] bytes = stream.readAllBytes();
+                ParallelTableauParser parser =
+                        new ParallelTableauParser(bytes);
+                parser.setProjection(projection);
+                parser.setStringTable(StringTable.shared());
+                episodes = EpisodeTable.of(parser.parse());
+                if (summary) {
+                    document = new TableauDocument(bytes);
+                }
+            } else if (summary) {
+                RecordingInputStream recording =
+                        new RecordingInputStream(stream);
+                episodes = parseStreaming(recording, id, notify);
+                document = new TableauDocument(recording.toByteArray());
+            } else {
+                episodes = parseStreaming(stream, id, notify);
+            }
+
+            if (episodes == null || isCancelled(fetch)) {
+                return null;
+            }
+            TableauCache.Entry entry =
+                    cache.put(id, date, episodes, document, source);
+            // only ask if modified next time once the tableau is cached
+            content.commit();
+            return entry;
 
         } catch (FileNotFoundException e) {
-            // Load empty list of episodes
-            List<Episode> episodes = new ArrayList<>();
-            cacheEpisodes(episodes);
+            // No tableau for channel, cache an empty one
+            return cache.put(id, date, new EpisodeTable(), null, null);
+        }
+    }
+
+    /**
+     * Parses episodes while they are downloaded, and hands them over to
+     * the listener in batches
+     * @param stream Stream with tableau to parse
+     * @param id Channel id of tableau
+     * @param notify False if batches should not be handed over, e.g. as
+     *               an older version of the tableau is already shown
+     * @return The episodes, or null if interrupted
+     * @throws XMLStreamException If XML Stream encountered error
+     * @throws IOException If something when wrong when reading stream
+     */
+    private EpisodeTable parseStreaming(InputStream stream, int id,
+                                        boolean notify)
+                                      throws XMLStreamException, IOException {
+        EpisodeTable episodes = new EpisodeTable();
+        TableauParser parser = new TableauParser(stream, projection);
+        // share names between the tableaux of all channels
+        parser.setStringTable(StringTable.shared());
+        int batchStart = 0;
 
-            if (Thread.currentThread().isInterrupted()) {
-                return;
+        boolean more = true;
+        while (more) {
+            more = parser.parseNextInto(episodes);
+
+            if (episodes.size() - batchStart == BATCH_SIZE
+                    || (!more && episodes.size() > batchStart)) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return null;
+                }
+                if (notify) {
+                    notifyEpisodesParsed(id, episodes, batchStart);
+                }
+                batchStart = episodes.size();
             }
-            tableauLoadedListener.onTableauLoaded(channelID.get(), episodes);
+        }
+
+        return episodes;
+    }
+
+    /**
+     * Hand over a batch of parsed episodes to the listener
+     * @param id Channel id of tableau
+     * @param episodes All episodes parsed so far
+     * @param from Index of first episode in batch
+     */
+    private void notifyEpisodesParsed(int id, EpisodeTable episodes,
+                                      int from) {
+        // a shared download may outlive the update which started it
+        if (episodesParsedListener != null && channelID.get() == id) {
+            episodesParsedListener.onEpisodesParsed(id, from, episodes);
+        }
+    }
 
-        } catch (XMLStreamException | IOException e) {
-            // could not read from stream
-            if (Thread.currentThread().isInterrupted()) {
-                return;
+    /**
+     * Get the last loaded tableau, e.g. to look up episodes by id or time.
+     * Thread-safe, the table must not be changed.
+     * @return Episodes of last loaded tableau
+     */
+    public EpisodeTable getEpisodes() {
+        TableauCache.Entry loaded = current;
+        return loaded == null ? new EpisodeTable() : loaded.episodes;
+    }
+
+    /**
+     * Get the most recently used tableaux of today, with all fields of
+     * their episodes parsed, e.g. to save them for the next start
+     * @param count Number of tableaux to get at most
+     * @return The tableaux, most recently used last
+     */
+    public List<SnapshotStore.SavedTableau> getRecentTableaux(int count) {
+        LocalDate today = LocalDate.now();
+        List<SnapshotStore.SavedTableau> recent = new ArrayList<>();
+        List<TableauDocument> documents = new ArrayList<>();
+        cache.forEach((id, date, entry) -> {
+            if (!date.isBefore(today)) {
+                recent.add(new SnapshotStore.SavedTableau(id, date,
+                                                          entry.episodes));
+                documents.add(entry.document);
             }
-            tableauLoadedListener.onTableauLoaded(-1, null);
+        });
+
+        // parse details outside of the cache lock
+        List<SnapshotStore.SavedTableau> tableaux = new ArrayList<>();
+        for (int i = Math.max(recent.size() - count, 0); i < recent.size();
+             i++) {
+            SnapshotStore.SavedTableau saved = recent.get(i);
+            tableaux.add(new SnapshotStore.SavedTableau(
+                    saved.channelID, saved.date,
+                    withDetails(saved.episodes, documents.get(i))));
         }
+        return tableaux;
     }
 
     /**
-     * Cache loaded episode in a thread-safe way
-     * @param episodes Episodes to cache
+     * @param episodes Episodes of a loaded tableau
+     * @param document Document the episodes were parsed from, or null
+     * @return The episodes with all fields parsed
      */
-    private void cacheEpisodes(List<Episode> episodes) {
-        cachedEpisodes = new CopyOnWriteArrayList<>(episodes);
+    private static EpisodeTable withDetails(EpisodeTable episodes,
+                                            TableauDocument document) {
+        if (document == null) {
+            return episodes;
+        }
+        EpisodeTable details = new EpisodeTable(episodes.size());
+        for (int i = 0; i < episodes.size(); i++) {
+            details.add(withDetails(episodes.toEpisode(i), document, i));
+        }
+        return details;
+    }
+
+    /**
+     * Put a tableau loaded earlier, e.g. restored from disk, in the cache.
+     * Updating to it hands it over at once, and then downloads it again.
+     * @param tableau Tableau to restore
+     */
+    public void restore(SnapshotStore.SavedTableau tableau) {
+        cache.restore(tableau.channelID, tableau.date, tableau.episodes);
+    }
+
+    /**
+     * Get the cache of recently loaded tableaux, e.g. for its hit and
+     * miss counts
+     * @return The cache
+     */
+    public TableauCache getCache() {
+        return cache;
     }
 
     /**
@@ -153,11 +700,63 @@ public class TableauUpdater implements Runnable {
      * @return Episode on index, or null if no episode found on index
      */
     public Episode getEpisode(int index) {
-        try {
-            return cachedEpisodes.get(index);
-        } catch (ArrayIndexOutOfBoundsException e) {
+        return getEpisode(current, index);
+    }
+
+    /**
+     * @param loaded A loaded tableau, or null
+     * @param index Index of episode to get
+     * @return Episode on index, or null if no episode found on index
+     */
+    private static Episode getEpisode(TableauCache.Entry loaded, int index) {
+        if (loaded == null || index < 0 || index >= loaded.episodes.size()) {
             return null;
         }
+        return loaded.episodes.toEpisode(index);
+    }
+
+    /**
+     * Get an episode by id from a tableau handed over to the listeners,
+     * with all fields parsed if it is the last loaded tableau, also when
+     * it was loaded with only a summary of each episode, see
+     * {@link #setProjection(TableauParser.Projection)}. Thread-safe
+     * @param episodes Tableau to look in, which must not be changing
+     * @param episodeid Id of episode to get
+     * @return The episode, or null if not in the tableau
+     */
+    public Episode getEpisodeDetails(EpisodeTable episodes, int episodeid) {
+        int index = episodes.indexOf(episodeid);
+        if (index < 0) {
+            return null;
+        }
+
+        Episode episode = episodes.toEpisode(index);
+        TableauCache.Entry loaded = current;
+        if (loaded == null || loaded.document == null
+                || !loaded.episodes.equals(episodes)) {
+            return episode; // details not known
+        }
+        return withDetails(episode, loaded.document, index);
+    }
+
+    /**
+     * @param episode Summary of an episode
+     * @param document Document the episode was parsed from
+     * @param index Index of the episode
+     * @return Episode with all fields parsed, or the summary if they
+     *         could not be parsed
+     */
+    private static Episode withDetails(Episode episode,
+                                       TableauDocument document, int index) {
+        try {
+            Episode details = document.parseEpisode(index);
+            if (details != null && details.episodeid == episode.episodeid) {
+                return details;
+            }
+        } catch (XMLStreamException e) {
+            /* result: only summary of episode */
+        }
+        return episode;
     }
 
     /**
@@ -170,4 +769,15 @@ public class TableauUpdater implements Runnable {
     public void setTableauLoadedListener(TableauLoaded listener) {
         tableauLoadedListener = listener;
     }
+
+    /**
+     * Sets a listener for batches of episodes parsed while
+     * {@link #update()} is still downloading. See {@link EpisodesParsed}
+     * for specific returns. Only one listener can be set at a time. Remove
+     * existing listener by setting listener to null
+     * @param listener Listener to listen to partial results
+     */
+    public void setEpisodesParsedListener(EpisodesParsed listener) {
+        episodesParsedListener = listener;
+    }
 }
@@ -5,21 +5,31 @@
  */
 package model.parser;
 
-import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.events.Attribute;
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.*;
-import java.util.function.Consumer;
 
 /**
  * ChannelsParser is a specific XML parser for the SR API of channels
  */
 public class ChannelsParser extends Parser<Channel> {
 
-    private List<Channel> channels;
+    /**
+     * Where each attribute and element of a <channel> is stored in a
+     * Channel. Also used for the JSON format, see {@link JsonChannelsParser}
+     */
+    static final Schema<Channel> SCHEMA = new Schema<Channel>()
+            .attribute("channel", "id", (c, data) -> c.id = toInt(data))
+            .attribute("channel", "name", (c, data) -> c.name = data)
+            .element("id", (c, data) -> c.id = toInt(data))
+            .element("name", (c, data) -> c.name = data)
+            .element("image", (c, data) -> c.image = data)
+            .element("color", (c, data) -> c.color = data)
+            .element("tagline", (c, data) -> c.tagline = data)
+            .element("siteurl", (c, data) -> c.siteurl = data)
+            .canonicalElement("channeltype",
+                              (c, data) -> c.channeltype = data);
 
     /**
      * {@inheritDoc}
@@ -30,72 +40,34 @@ public class ChannelsParser extends Parser<Channel> {
     }
 
     /**
-     * Parses the XML-file according to the SR API.
-     * @return A list containing information about all the channels
+     * Parses the next <channel> in the XML-file according to the SR API.
+     * @return Information about the next channel, or null if there
+     *         are no more channels
      * @throws XMLStreamException If XML Stream encountered error
      */
     @Override
-    public List<Channel> parse() throws XMLStreamException {
-        XMLEventReader reader = getReader();
-
-        channels = new ArrayList<>();
-
-        while (reader.hasNext()) {
-            XMLEvent event = reader.nextEvent();
-            if (event.isStartElement()) {
-                if (isElement(event.asStartElement(), "channel")) {
-                    Iterator<Attribute> attributes =
-                            event.asStartElement().getAttributes();
-
-                    Channel channel = parseChannel(reader);
-                    parseChannelAttributes(attributes, channel);
-                    channels.add(channel);
-                }
-            }
+    Channel parseNext() throws XMLStreamException {
+        if (nextElement(getReader(), "channel")) {
+            return parseChannel(getReader());
         }
-
-        return channels;
+        return null;
     }
 
     /**
-     * Parses a <channel> element in the XML-file.
-     * @param reader XML reader for the file
+     * Parses a <channel> element in the XML-file, including its attributes.
+     * @param reader XML reader positioned on the <channel> element
      * @return A Channel containing all the information from the XML-file
      * @throws XMLStreamException If XML Stream encountered error
      */
-    private Channel parseChannel(XMLEventReader reader)
+    private Channel parseChannel(XMLStreamReader reader)
                                                     throws XMLStreamException {
 
         Channel channel = new Channel();
 
-        Map<String, Consumer<String>> mapElements = new HashMap<>();
-        mapElements.put("id", data -> channel.id = toInt(data));
-        mapElements.put("name", data -> channel.name = data);
-        mapElements.put("image", data -> channel.image = data);
-        mapElements.put("color", data -> channel.color = data);
-        mapElements.put("tagline", data -> channel.tagline = data);
-        mapElements.put("siteurl", data -> channel.siteurl = data);
-        mapElements.put("channeltype", data -> channel.channeltype = data);
-
-        matchElements(reader, mapElements, "channel");
+        // Attributes must be read while positioned on the start element
+        matchAttributes(reader, SCHEMA, channel, "channel");
+        matchElements(reader, SCHEMA, channel, "channel");
 
         return channel;
     }
-
-    /**
-     * Parses the attributes for a <channel> element
-     * @param attributes Attributes to parse
-     * @param channel The channel to add information to
-     */
-    private void parseChannelAttributes(Iterator<Attribute> attributes,
-                                        Channel channel) {
-        while (attributes.hasNext()) {
-            Attribute attribute = attributes.next();
-            if (isAttribute(attribute, "id")) {
-                channel.id = Integer.parseInt(attribute.getValue());
-            } else if (isAttribute(attribute, "name")) {
-                channel.name = attribute.getValue();
-            }
-        }
-    }
 }
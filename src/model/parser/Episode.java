@@ -5,11 +5,15 @@
  */
 package model.parser;
 
+import java.time.Instant;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
 
 
 /**
- * Simple class for containing all possible information about an episode
+ * Simple class for containing all possible information about an episode.
+ * Start and end times are stored as epoch seconds, use
+ * {@link #getStartTime()} and {@link #getEndTime()} for local date-times.
  */
 public class Episode {
 
@@ -20,13 +24,67 @@ public class Episode {
     public String url = "";
     public String imageurl = "";
     public String imageurltemplate = "";
-    public ZonedDateTime starttime;
-    public ZonedDateTime endtime;
+    public long startEpochSecond = 0;
+    public long endEpochSecond = 0;
     public int programid = 0;
     public String programName = "";
     public int channelid = 0;
     public String channelName = "";
 
+    private ZonedDateTime starttime;
+    private ZonedDateTime endtime;
+
+    /**
+     * Set all fields back to their defaults, so the episode can be reused
+     * when parsing
+     */
+    void reset() {
+        episodeid = -1;
+        title = "";
+        subtitle = "";
+        description = "";
+        url = "";
+        imageurl = "";
+        imageurltemplate = "";
+        startEpochSecond = 0;
+        endEpochSecond = 0;
+        programid = 0;
+        programName = "";
+        channelid = 0;
+        channelName = "";
+    }
+
+    /**
+     * Start time in the systems default time zone. Created on first use.
+     * @return When episode starts
+     */
+    public ZonedDateTime getStartTime() {
+        if (starttime == null
+                || starttime.toEpochSecond() != startEpochSecond) {
+            starttime = toLocalTime(startEpochSecond);
+        }
+        return starttime;
+    }
+
+    /**
+     * End time in the systems default time zone. Created on first use.
+     * @return When episode ends
+     */
+    public ZonedDateTime getEndTime() {
+        if (endtime == null || endtime.toEpochSecond() != endEpochSecond) {
+            endtime = toLocalTime(endEpochSecond);
+        }
+        return endtime;
+    }
+
+    /**
+     * Convert epoch seconds to a date-time in the systems default time zone
+     */
+    private static ZonedDateTime toLocalTime(long epochSecond) {
+        return Instant.ofEpochSecond(epochSecond)
+                      .atZone(ZoneId.systemDefault());
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -42,6 +100,8 @@ public class Episode {
         if (episodeid != episode.episodeid) return false;
         if (programid != episode.programid) return false;
         if (channelid != episode.channelid) return false;
+        if (startEpochSecond != episode.startEpochSecond) return false;
+        if (endEpochSecond != episode.endEpochSecond) return false;
         if (title != null ? !title.equals(episode.title) : episode.title != null)
             return false;
         if (subtitle != null ? !subtitle.equals(episode.subtitle) : episode.subtitle != null)
@@ -54,10 +114,6 @@ public class Episode {
             return false;
         if (imageurltemplate != null ? !imageurltemplate.equals(episode.imageurltemplate) : episode.imageurltemplate != null)
             return false;
-        if (starttime != null ? !starttime.equals(episode.starttime) : episode.starttime != null)
-            return false;
-        if (endtime != null ? !endtime.equals(episode.endtime) : episode.endtime != null)
-            return false;
         if (programName != null ? !programName.equals(episode.programName) : episode.programName != null)
             return false;
         return channelName != null ? channelName.equals(episode.channelName) : episode.channelName == null;
@@ -78,8 +134,8 @@ public class Episode {
         result = 31 * result + (url != null ? url.hashCode() : 0);
         result = 31 * result + (imageurl != null ? imageurl.hashCode() : 0);
         result = 31 * result + (imageurltemplate != null ? imageurltemplate.hashCode() : 0);
-        result = 31 * result + (starttime != null ? starttime.hashCode() : 0);
-        result = 31 * result + (endtime != null ? endtime.hashCode() : 0);
+        result = 31 * result + (int) (startEpochSecond ^ (startEpochSecond >>> 32));
+        result = 31 * result + (int) (endEpochSecond ^ (endEpochSecond >>> 32));
         result = 31 * result + programid;
         result = 31 * result + (programName != null ? programName.hashCode() : 0);
         result = 31 * result + channelid;
@@ -102,8 +158,8 @@ public class Episode {
                 ", url='" + url + '\'' +
                 ", imageurl='" + imageurl + '\'' +
                 ", imageurltemplate='" + imageurltemplate + '\'' +
-                ", starttime=" + starttime +
-                ", endtime=" + endtime +
+                ", starttime=" + getStartTime() +
+                ", endtime=" + getEndTime() +
                 ", programid=" + programid +
                 ", programName='" + programName + '\'' +
                 ", channelid=" + channelid +
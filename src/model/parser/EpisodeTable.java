@@ -0,0 +1,329 @@
+/*
+ * File: EpisodeTable.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-21
+ */
+package model.parser;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The episodes of a tableau stored column by column, with one array per
+ * field instead of one object per episode. Scanning a field, e.g. the start
+ * times when looking for the episode airing now, then only reads that
+ * array. Text is stored as references to strings shared through the
+ * parsers {@link StringTable}. The columns of the detail fields (subtitle,
+ * description and urls) are only created once an episode has such a
+ * field, so tableaux parsed with {@link TableauParser.Projection#SUMMARY}
+ * don't pay for them.
+ *
+ * Episodes are expected to be added in the order they air, as they are in
+ * a tableau. Tables are filled by one thread, and may be read by others
+ * once filled and safely published.
+ */
+public final class EpisodeTable {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private int size = 0;
+    private int[] episodeids;
+    private long[] starts;
+    private long[] ends;
+    private int[] programids;
+    private int[] channelids;
+    private String[] titles;
+    private String[] programNames;
+    private String[] channelNames;
+
+    // detail columns, null until first used
+    private String[] subtitles;
+    private String[] descriptions;
+    private String[] urls;
+    private String[] imageurls;
+    private String[] imageurltemplates;
+
+    /**
+     * Creates an empty table
+     */
+    public EpisodeTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty table
+     * @param capacity Number of episodes to make room for
+     */
+    public EpisodeTable(int capacity) {
+        int initial = Math.max(capacity, 1);
+        episodeids = new int[initial];
+        starts = new long[initial];
+        ends = new long[initial];
+        programids = new int[initial];
+        channelids = new int[initial];
+        titles = new String[initial];
+        programNames = new String[initial];
+        channelNames = new String[initial];
+    }
+
+    /**
+     * Creates a table with the given episodes
+     * @param episodes Episodes in the order they air
+     * @return Table of the episodes
+     */
+    public static EpisodeTable of(List<Episode> episodes) {
+        EpisodeTable table = new EpisodeTable(episodes.size());
+        for (Episode episode : episodes) {
+            table.add(episode);
+        }
+        return table;
+    }
+
+    /**
+     * @return Number of episodes in table
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Add an episode last in the table. The fields are copied, so the
+     * episode can be reused afterwards.
+     * @param episode Episode to add
+     */
+    public void add(Episode episode) {
+        if (size == episodeids.length) {
+            grow();
+        }
+
+        int i = size;
+        episodeids[i] = episode.episodeid;
+        starts[i] = episode.startEpochSecond;
+        ends[i] = episode.endEpochSecond;
+        programids[i] = episode.programid;
+        channelids[i] = episode.channelid;
+        titles[i] = episode.title;
+        programNames[i] = episode.programName;
+        channelNames[i] = episode.channelName;
+
+        subtitles = setDetail(subtitles, i, episode.subtitle);
+        descriptions = setDetail(descriptions, i, episode.description);
+        urls = setDetail(urls, i, episode.url);
+        imageurls = setDetail(imageurls, i, episode.imageurl);
+        imageurltemplates = setDetail(imageurltemplates, i,
+                                      episode.imageurltemplate);
+        size++;
+    }
+
+    /**
+     * Find an episode by its id
+     * @param episodeid Id of episode
+     * @return Index of the episode, or -1 if not in table
+     */
+    public int indexOf(int episodeid) {
+        for (int i = 0; i < size; i++) {
+            if (episodeids[i] == episodeid) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find the episode airing at a point in time, or the latest one which
+     * has started if there is a gap in the tableau
+     * @param epochSecond Point in time as seconds since epoch
+     * @return Index of the last episode which starts at or before the
+     *         given time, or -1 if all episodes start after it
+     */
+    public int indexAt(long epochSecond) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] <= epochSecond) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Create an Episode with the fields of an episode in the table
+     * @param index Index of the episode
+     * @return A new Episode
+     * @throws IndexOutOfBoundsException If there is no episode on index
+     */
+    public Episode toEpisode(int index) {
+        checkIndex(index);
+
+        Episode episode = new Episode();
+        episode.episodeid = episodeids[index];
+        episode.startEpochSecond = starts[index];
+        episode.endEpochSecond = ends[index];
+        episode.programid = programids[index];
+        episode.channelid = channelids[index];
+        episode.title = titles[index];
+        episode.programName = programNames[index];
+        episode.channelName = channelNames[index];
+        episode.subtitle = getDetail(subtitles, index);
+        episode.description = getDetail(descriptions, index);
+        episode.url = getDetail(urls, index);
+        episode.imageurl = getDetail(imageurls, index);
+        episode.imageurltemplate = getDetail(imageurltemplates, index);
+        return episode;
+    }
+
+    /*
+     * Fields of the episode on index. Throws IndexOutOfBoundsException if
+     * there is no episode on index.
+     */
+
+    public int getEpisodeId(int index) {
+        checkIndex(index);
+        return episodeids[index];
+    }
+
+    public long getStartEpochSecond(int index) {
+        checkIndex(index);
+        return starts[index];
+    }
+
+    public long getEndEpochSecond(int index) {
+        checkIndex(index);
+        return ends[index];
+    }
+
+    public String getTitle(int index) {
+        checkIndex(index);
+        return titles[index];
+    }
+
+    public int getProgramId(int index) {
+        checkIndex(index);
+        return programids[index];
+    }
+
+    public String getProgramName(int index) {
+        checkIndex(index);
+        return programNames[index];
+    }
+
+    public int getChannelId(int index) {
+        checkIndex(index);
+        return channelids[index];
+    }
+
+    public String getChannelName(int index) {
+        checkIndex(index);
+        return channelNames[index];
+    }
+
+    /**
+     * Tables are equal if they have the same episodes, in the same order
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        EpisodeTable other = (EpisodeTable) o;
+        if (size != other.size) return false;
+
+        for (int i = 0; i < size; i++) {
+            if (episodeids[i] != other.episodeids[i]
+                    || starts[i] != other.starts[i]
+                    || ends[i] != other.ends[i]
+                    || programids[i] != other.programids[i]
+                    || channelids[i] != other.channelids[i]
+                    || !Objects.equals(titles[i], other.titles[i])
+                    || !Objects.equals(programNames[i], other.programNames[i])
+                    || !Objects.equals(channelNames[i], other.channelNames[i])
+                    || !detailEquals(subtitles, other.subtitles, i)
+                    || !detailEquals(descriptions, other.descriptions, i)
+                    || !detailEquals(urls, other.urls, i)
+                    || !detailEquals(imageurls, other.imageurls, i)
+                    || !detailEquals(imageurltemplates,
+                                     other.imageurltemplates, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = size;
+        for (int i = 0; i < size; i++) {
+            result = 31 * result + episodeids[i];
+            result = 31 * result + Long.hashCode(starts[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Double the capacity of all columns in use
+     */
+    private void grow() {
+        int capacity = episodeids.length * 2;
+        episodeids = Arrays.copyOf(episodeids, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        programids = Arrays.copyOf(programids, capacity);
+        channelids = Arrays.copyOf(channelids, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        programNames = Arrays.copyOf(programNames, capacity);
+        channelNames = Arrays.copyOf(channelNames, capacity);
+
+        subtitles = growDetail(subtitles, capacity);
+        descriptions = growDetail(descriptions, capacity);
+        urls = growDetail(urls, capacity);
+        imageurls = growDetail(imageurls, capacity);
+        imageurltemplates = growDetail(imageurltemplates, capacity);
+    }
+
+    /**
+     * Store a detail field, creating its column if value is not empty
+     * @return The column, which is null if no value has been stored yet
+     */
+    private String[] setDetail(String[] column, int index, String value) {
+        if (column == null) {
+            if (value == null || value.isEmpty()) {
+                return null;
+            }
+            column = new String[episodeids.length];
+        }
+        column[index] = value;
+        return column;
+    }
+
+    private static String[] growDetail(String[] column, int capacity) {
+        return column == null ? null : Arrays.copyOf(column, capacity);
+    }
+
+    /**
+     * @return Value of a detail field, or the default of Episode if the
+     *         column has not been created
+     */
+    private static String getDetail(String[] column, int index) {
+        if (column == null || column[index] == null) {
+            return "";
+        }
+        return column[index];
+    }
+
+    private static boolean detailEquals(String[] column, String[] other,
+                                        int index) {
+        return getDetail(column, index).equals(getDetail(other, index));
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "Index: " + index + ", Size: " + size);
+        }
+    }
+}
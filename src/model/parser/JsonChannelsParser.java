@@ -0,0 +1,23 @@
+/*
+ * File: JsonChannelsParser.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-17
+ */
+package model.parser;
+
+import java.io.InputStream;
+
+/**
+ * JsonChannelsParser is a specific JSON parser for the SR API of channels.
+ * Produces the same channels as {@link ChannelsParser} does from XML.
+ */
+public class JsonChannelsParser extends JsonParser<Channel> {
+
+    /**
+     * Takes an inputstream which should contain a JSON document
+     * @param stream Stream to read as JSON
+     */
+    public JsonChannelsParser(InputStream stream) {
+        super(stream, "channels", ChannelsParser.SCHEMA, Channel::new);
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * File: JsonParser.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-17
+ */
+package model.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Abstract parser for the JSON format of the SR API. The JSON counterpart
+ * of {@link Parser}, and uses the same {@link Schema} to store values in
+ * records. Records are the objects of an array in the root object, e.g.
+ * "channels". Scalar members are bound as elements, and the members of
+ * nested objects (e.g. "program": {"id": 1, "name": ""}) are bound as
+ * attributes of an element with the name of the nested object.
+ *
+ * Records can either be parsed all at once with {@link #parse()}, or be
+ * pulled one at a time through {@link #iterator()} or {@link #stream()}.
+ * A parser can only go through its document once.
+ * @param <T> What should be produced with each record
+ */
+abstract class JsonParser<T> {
+
+    private static final int STRING_TABLE_SIZE = 256;
+
+    private final JsonReader reader;
+    private final String recordsName;
+    private final Schema<T> schema;
+    private final Supplier<T> newRecord;
+    private boolean inRecords = false;
+    private boolean done = false;
+    private StringTable strings = new StringTable(STRING_TABLE_SIZE);
+
+    /**
+     * Takes an inputstream which should contain a JSON document
+     * @param stream Stream to read as JSON
+     * @param recordsName Name of the array in root object holding records
+     * @param schema Bindings from member names to fields of records
+     * @param newRecord Creates an empty record
+     */
+    JsonParser(InputStream stream, String recordsName, Schema<T> schema,
+               Supplier<T> newRecord) {
+        this.reader = new JsonReader(stream);
+        this.recordsName = recordsName;
+        this.schema = schema;
+        this.newRecord = newRecord;
+    }
+
+    /**
+     * Set the table used to share repeated values between records. Each
+     * parser has its own table if not set, so values are only shared
+     * within one document.
+     * @param strings Table to use, e.g. {@link StringTable#shared()}
+     */
+    public void setStringTable(StringTable strings) {
+        this.strings = strings;
+    }
+
+    /**
+     * Parses the next record of the document
+     * @return The next record, or null if there are no more records
+     * @throws IOException If stream could not be read or is not valid JSON
+     */
+    T parseNext() throws IOException {
+        if (!nextRecord()) {
+            return null;
+        }
+
+        T record = newRecord.get();
+        matchMembers(record);
+        return record;
+    }
+
+    /**
+     * Parses the rest of the document
+     * @return A list containing the desired output
+     * @throws IOException If stream could not be read or is not valid JSON
+     */
+    public List<T> parse() throws IOException {
+        List<T> records = new ArrayList<>();
+
+        T record;
+        while ((record = parseNext()) != null) {
+            records.add(record);
+        }
+
+        return records;
+    }
+
+    /**
+     * Iterator over the records, parsed one at a time as they are asked for
+     * @return An iterator which throws {@link UncheckedIOException}
+     *         if stream could not be read or is not valid JSON
+     */
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private T next;
+            private boolean end;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !end) {
+                    try {
+                        next = parseNext();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    end = next == null;
+                }
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T record = next;
+                next = null;
+                return record;
+            }
+        };
+    }
+
+    /**
+     * Sequential stream over the records, parsed one at a time as they
+     * are consumed
+     * @return A stream which throws {@link UncheckedIOException}
+     *         if stream could not be read or is not valid JSON
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                iterator(), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Move the reader to the start of the next record
+     * @return True if positioned on a record, false if no more records
+     * @throws IOException If stream could not be read or is not valid JSON
+     */
+    private boolean nextRecord() throws IOException {
+        while (!done) {
+            int event = reader.next();
+
+            if (event == JsonReader.END_DOCUMENT) {
+                done = true;
+            } else if (!inRecords) {
+                if (event == JsonReader.NAME && reader.getDepth() == 1) {
+                    if (reader.getName().equals(recordsName)
+                            && reader.next() == JsonReader.BEGIN_ARRAY) {
+                        inRecords = true;
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+            } else if (event == JsonReader.BEGIN_OBJECT) {
+                return true;
+            } else if (event == JsonReader.END_ARRAY) {
+                done = true;
+            } else {
+                reader.skipValue();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Store the members of the object the reader is positioned on in the
+     * record, according to the schema. Reader is left on the end of object.
+     * @param record Record to store matched values in
+     * @throws IOException If stream could not be read or is not valid JSON
+     */
+    private void matchMembers(T record) throws IOException {
+        int event;
+        while ((event = reader.next()) != JsonReader.END_OBJECT) {
+            if (event != JsonReader.NAME) {
+                throw new IOException("Malformed JSON: expected member");
+            }
+            String name = reader.getName();
+
+            Map<String, Schema.Setter<T>> attributes =
+                    schema.getAttributes(name);
+            Schema.Setter<T> setter = schema.getElement(name);
+
+            int value = reader.next();
+            if (value == JsonReader.BEGIN_OBJECT && attributes != null) {
+                matchNested(record, attributes);
+            } else if (value == JsonReader.BEGIN_OBJECT
+                       || value == JsonReader.BEGIN_ARRAY) {
+                reader.skipValue();
+            } else if (setter != null && !isNull(value)) {
+                setter.set(record, text(setter));
+            }
+        }
+    }
+
+    /**
+     * Store the scalar members of a nested object in the record
+     * @param record Record to store matched values in
+     * @param setters Setters by member name of the nested object
+     * @throws IOException If stream could not be read or is not valid JSON
+     */
+    private void matchNested(T record, Map<String, Schema.Setter<T>> setters)
+                                                           throws IOException {
+        int event;
+        while ((event = reader.next()) != JsonReader.END_OBJECT) {
+            if (event != JsonReader.NAME) {
+                throw new IOException("Malformed JSON: expected member");
+            }
+            Schema.Setter<T> setter = setters.get(reader.getName());
+
+            int value = reader.next();
+            if (value == JsonReader.BEGIN_OBJECT
+                    || value == JsonReader.BEGIN_ARRAY) {
+                reader.skipValue();
+            } else if (setter != null && !isNull(value)) {
+                setter.set(record, text(setter));
+            }
+        }
+    }
+
+    /**
+     * Text of the value the reader is positioned on
+     * @param setter Setter the text is for
+     * @return The text, shared with earlier records if setter is canonical
+     */
+    private String text(Schema.Setter<T> setter) {
+        return schema.isCanonical(setter) ? reader.getText(strings)
+                                          : reader.getText();
+    }
+
+    /**
+     * Check if the value the reader is positioned on is null
+     * @param event Type of the value
+     * @return True if value is the literal null
+     */
+    private boolean isNull(int event) {
+        return event == JsonReader.LITERAL && reader.getText().equals("null");
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * File: JsonReader.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-17
+ */
+package model.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming JSON reader working as a cursor, in the same way as a StAX
+ * XMLStreamReader. Each call to {@link #next()} moves to the next token,
+ * and the text of names and values can be read while positioned on them.
+ * Commas and colons are consumed without being reported. Package private,
+ * used by {@link JsonParser}.
+ */
+final class JsonReader {
+
+    static final int BEGIN_OBJECT = 1;
+    static final int END_OBJECT = 2;
+    static final int BEGIN_ARRAY = 3;
+    static final int END_ARRAY = 4;
+    static final int NAME = 5;
+    static final int STRING = 6;
+    static final int NUMBER = 7;
+    static final int LITERAL = 8; // true, false or null
+    static final int END_DOCUMENT = 9;
+
+    private static final int NAME_CACHE_SIZE = 64;
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int position = 0;
+    private int limit = 0;
+
+    private final StringBuilder text = new StringBuilder();
+    private final String[] names = new String[NAME_CACHE_SIZE];
+    private int event = 0;
+    private int depth = 0;
+
+    /**
+     * @param stream UTF-8 encoded JSON document
+     */
+    JsonReader(InputStream stream) {
+        in = new InputStreamReader(stream, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Move to the next token
+     * @return Type of the token
+     * @throws IOException If stream could not be read or is not valid JSON
+     */
+    int next() throws IOException {
+        int c = skipSeparators();
+
+        switch (c) {
+            case -1:
+                event = END_DOCUMENT;
+                break;
+            case '{':
+                depth++;
+                event = BEGIN_OBJECT;
+                break;
+            case '}':
+                depth--;
+                event = END_OBJECT;
+                break;
+            case '[':
+                depth++;
+                event = BEGIN_ARRAY;
+                break;
+            case ']':
+                depth--;
+                event = END_ARRAY;
+                break;
+            case '"':
+                readString();
+                if (skipWhitespace() == ':') {
+                    position++;
+                    event = NAME;
+                } else {
+                    event = STRING;
+                }
+                break;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    event = NUMBER;
+                } else if (c >= 'a' && c <= 'z') {
+                    event = LITERAL;
+                } else {
+                    throw malformed("Unexpected character '" + (char) c + "'");
+                }
+                readUnquoted((char) c);
+        }
+
+        return event;
+    }
+
+    /**
+     * @return Type of the token the reader is positioned on
+     */
+    int getEventType() {
+        return event;
+    }
+
+    /**
+     * @return Number of objects and arrays the reader is inside of
+     */
+    int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Text of a string, number or literal value
+     * @return The value as a string
+     */
+    String getText() {
+        return text.toString();
+    }
+
+    /**
+     * Text of a string, number or literal value, looked up in a table of
+     * canonical strings so no new string is created for repeated values
+     * @param strings Table to look up text in
+     * @return The value as a string
+     */
+    String getText(StringTable strings) {
+        return strings.canonical(text);
+    }
+
+    /**
+     * Name of a member. Names are reused between calls, so reading the
+     * same member names over and over does not create new strings.
+     * @return The name
+     */
+    String getName() {
+        int hash = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        int slot = hash & (NAME_CACHE_SIZE - 1);
+
+        String name = names[slot];
+        if (name == null || !name.contentEquals(text)) {
+            name = text.toString();
+            names[slot] = name;
+        }
+        return name;
+    }
+
+    /**
+     * When positioned on a name, skip the value of that member. When
+     * positioned on the start of an object or array, skip to its end.
+     * @throws IOException If stream could not be read or is not valid JSON
+     */
+    void skipValue() throws IOException {
+        int target = depth;
+        if (event == NAME) {
+            int value = next();
+            if (value != BEGIN_OBJECT && value != BEGIN_ARRAY) {
+                return;
+            }
+        } else if (event != BEGIN_OBJECT && event != BEGIN_ARRAY) {
+            return;
+        } else {
+            target = depth - 1;
+        }
+
+        while (depth > target) {
+            if (next() == END_DOCUMENT) {
+                throw malformed("Unexpected end of document");
+            }
+        }
+    }
+
+    /**
+     * Reads a quoted string into text, the opening quote already consumed
+     */
+    private void readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw malformed("Unterminated string");
+            } else if (c == '"') {
+                return;
+            } else if (c == '\\') {
+                text.append(readEscape());
+            } else {
+                text.append((char) c);
+            }
+        }
+    }
+
+    /**
+     * Reads the character after a backslash
+     */
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit == -1) {
+                        throw malformed("Invalid unicode escape");
+                    }
+                    value = value * 16 + digit;
+                }
+                return (char) value;
+            case '"': case '\\': case '/':
+                return (char) c;
+            default:
+                throw malformed("Invalid escape");
+        }
+    }
+
+    /**
+     * Reads a number or literal into text, first character already consumed
+     */
+    private void readUnquoted(char first) throws IOException {
+        text.setLength(0);
+        text.append(first);
+        while (true) {
+            int c = peek();
+            if (c == -1 || c == ',' || c == '}' || c == ']' || c == ':'
+                    || Character.isWhitespace(c)) {
+                return;
+            }
+            text.append((char) c);
+            position++;
+        }
+    }
+
+    /**
+     * Skips whitespace, commas and colons
+     * @return The next character, which is consumed, or -1 at end
+     */
+    private int skipSeparators() throws IOException {
+        while (true) {
+            int c = read();
+            if (c != ',' && c != ':' && !Character.isWhitespace(c)) {
+                return c;
+            }
+        }
+    }
+
+    /**
+     * Skips whitespace
+     * @return The next character, which is not consumed, or -1 at end
+     */
+    private int skipWhitespace() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c == -1 || !Character.isWhitespace(c)) {
+                return c;
+            }
+            position++;
+        }
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c != -1) {
+            position++;
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position];
+    }
+
+    private IOException malformed(String message) {
+        return new IOException("Malformed JSON: " + message);
+    }
+}
@@ -0,0 +1,23 @@
+/*
+ * File: JsonTableauParser.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-17
+ */
+package model.parser;
+
+import java.io.InputStream;
+
+/**
+ * JsonTableauParser is a specific JSON parser for the SR API of tableau's.
+ * Produces the same episodes as {@link TableauParser} does from XML.
+ */
+public class JsonTableauParser extends JsonParser<Episode> {
+
+    /**
+     * Takes an inputstream which should contain a JSON document
+     * @param stream Stream to read as JSON
+     */
+    public JsonTableauParser(InputStream stream) {
+        super(stream, "schedule", TableauParser.SCHEMA, Episode::new);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * File: ParallelTableauParser.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-18
+ */
+package model.parser;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses a buffered tableau document in parallel. The document is split
+ * at <scheduledepisode> boundaries into chunks, which are parsed with
+ * {@link TableauParser} on a ForkJoinPool. The result is in document order,
+ * and the same as {@link TableauParser#parse()} would give. Small
+ * documents are parsed on the calling thread.
+ */
+public class ParallelTableauParser {
+
+    private static final int MIN_CHUNK_SIZE = 64 * 1024; // bytes
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int STRING_TABLE_SIZE = 256;
+    private static final byte[] CHUNK_START =
+            "<schedule>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CHUNK_END =
+            "</schedule>".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] document;
+    private final ForkJoinPool pool;
+    private final int minChunkSize;
+    private TableauParser.Projection projection =
+            TableauParser.Projection.FULL;
+    private StringTable strings;
+
+    /**
+     * Parse on the common ForkJoinPool
+     * @param document UTF-8 encoded XML document
+     */
+    public ParallelTableauParser(byte[] document) {
+        this(document, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param document UTF-8 encoded XML document
+     * @param pool Pool to parse chunks on
+     */
+    public ParallelTableauParser(byte[] document, ForkJoinPool pool) {
+        this(document, pool, MIN_CHUNK_SIZE);
+    }
+
+    /**
+     * @param document UTF-8 encoded XML document
+     * @param pool Pool to parse chunks on
+     * @param minChunkSize Smallest number of bytes worth parsing on its own
+     */
+    ParallelTableauParser(byte[] document, ForkJoinPool pool,
+                          int minChunkSize) {
+        this.document = document;
+        this.pool = pool;
+        this.minChunkSize = minChunkSize;
+    }
+
+    /**
+     * Parse only some of the fields of each episode. All fields are
+     * parsed if not set.
+     * @param projection Which fields to parse
+     */
+    public void setProjection(TableauParser.Projection projection) {
+        this.projection = projection;
+    }
+
+    /**
+     * Set the table used to share repeated values between episodes. If
+     * not set, each call to {@link #parse()} uses its own table, shared
+     * by all chunks.
+     * @param strings Table to use, e.g. {@link StringTable#shared()}
+     */
+    public void setStringTable(StringTable strings) {
+        this.strings = strings;
+    }
+
+    /**
+     * Parses the XML-file according to the SR API.
+     * @return A list containing information about all the episodes
+     * @throws XMLStreamException If XML Stream encountered error
+     */
+    public List<Episode> parse() throws XMLStreamException {
+        StringTable table = strings != null
+                            ? strings : new StringTable(STRING_TABLE_SIZE);
+        int chunkSize = Math.max(minChunkSize, document.length /
+                (pool.getParallelism() * CHUNKS_PER_THREAD));
+
+        if (document.length < chunkSize * 2 || pool.getParallelism() < 2) {
+            return parseChunk(0, document.length, false, table);
+        }
+
+        ScheduleIndex index = ScheduleIndex.scan(document, 0,
+                                                 document.length);
+        List<ForkJoinTask<List<Episode>>> tasks = new ArrayList<>();
+
+        int first = 0;
+        while (first < index.size()) {
+            int last = first;
+            while (last + 1 < index.size()
+                   && index.end(last) - index.start(first) < chunkSize) {
+                last++;
+            }
+
+            int from = index.start(first);
+            int to = index.end(last);
+            tasks.add(pool.submit(() -> {
+                try {
+                    return parseChunk(from, to, true, table);
+                } catch (XMLStreamException e) {
+                    throw new UncheckedXMLStreamException(e);
+                }
+            }));
+            first = last + 1;
+        }
+
+        List<Episode> episodes = new ArrayList<>(index.size());
+        for (ForkJoinTask<List<Episode>> task : tasks) {
+            try {
+                episodes.addAll(task.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new XMLStreamException("Interrupted while parsing", e);
+            } catch (ExecutionException e) {
+                for (Throwable cause = e; cause != null;
+                     cause = cause.getCause()) {
+                    if (cause instanceof UncheckedXMLStreamException) {
+                        throw ((UncheckedXMLStreamException) cause).getCause();
+                    }
+                }
+                throw new XMLStreamException(e.getCause());
+            }
+        }
+        return episodes;
+    }
+
+    /**
+     * Parse a part of the document
+     * @param from First byte of the part
+     * @param to Byte after last byte of the part
+     * @param wrap True if part is a sequence of <scheduledepisode> that
+     *             has to be wrapped in an element to be a document
+     * @param table Table to share repeated values through
+     * @return Episodes in the part
+     * @throws XMLStreamException If XML Stream encountered error
+     */
+    private List<Episode> parseChunk(int from, int to, boolean wrap,
+                                     StringTable table)
+                                                   throws XMLStreamException {
+        InputStream chunk = new ByteArrayInputStream(document, from,
+                                                     to - from);
+        if (wrap) {
+            chunk = new SequenceInputStream(
+                    new SequenceInputStream(
+                            new ByteArrayInputStream(CHUNK_START), chunk),
+                    new ByteArrayInputStream(CHUNK_END));
+        }
+
+        try {
+            TableauParser parser = new TableauParser(chunk, projection);
+            parser.setStringTable(table);
+            return parser.parse();
+        } catch (IOException e) {
+            throw new XMLStreamException(e); // can't happen on a byte array
+        }
+    }
+}
@@ -5,120 +5,228 @@
  */
 package model.parser;
 
-import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.events.Attribute;
-import javax.xml.stream.events.EndElement;
-import javax.xml.stream.events.StartElement;
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.function.Consumer;
+import java.io.PushbackInputStream;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static javax.xml.stream.XMLStreamConstants.*;
 
 
 /**
  * Abstract parser for XML parsing. Will ease XML parsing by matching
- * element names with corresponding action. Uses StAX XML reader.
+ * element names with corresponding action. Uses the StAX cursor API
+ * (XMLStreamReader), so no event objects are created while walking the
+ * document; only the values actually asked for are turned into strings.
+ *
+ * Records can either be parsed all at once with {@link #parse()}, or be
+ * pulled one at a time through {@link #iterator()} or {@link #stream()}
+ * while the rest of the document is still being read. A parser can only
+ * go through its document once.
  * @param <T> What should be produced with each element
  */
 abstract class Parser<T> {
 
-    private XMLEventReader eventReader;
+    /**
+     * Shared by all parsers, as looking up and configuring a factory is
+     * expensive. Text is coalesced into a single event, and DTDs and
+     * external entities are never loaded. Only used while holding its lock,
+     * as factories are not guaranteed to be thread-safe.
+     */
+    private static final XMLInputFactory FACTORY = createFactory();
+    private static final int STRING_TABLE_SIZE = 256;
+
+    private XMLStreamReader reader;
+    private StringTable strings = new StringTable(STRING_TABLE_SIZE);
 
     /**
      * Takes an inputstream which should contain an xml file, otherwise
-     * exception is thrown.
+     * exception is thrown. An empty stream is treated as an empty document.
      * @param stream Stream to read as a xml file
      * @throws IOException If something when wrong when reading inputstream
      * @throws XMLStreamException Something went wrong with basing
      *                            XML on inputstream
      */
     public Parser(InputStream stream) throws IOException, XMLStreamException {
+        PushbackInputStream input = new PushbackInputStream(stream, 1);
+        int first = input.read();
+        if (first == -1) {
+            reader = null; // empty document, nothing to parse
+            return;
+        }
+        input.unread(first);
+
+        synchronized (FACTORY) {
+            reader = FACTORY.createXMLStreamReader(input);
+        }
+    }
+
+    /**
+     * Creates the factory shared by all parsers
+     * @return A configured factory
+     */
+    private static XMLInputFactory createFactory() {
         XMLInputFactory factory = XMLInputFactory.newInstance();
-        eventReader = factory.createXMLEventReader(stream);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(
+                XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
     }
 
     /**
      * Return the xml reader. Should be used by extending subclasses
-     * @return The reader used to parse the xml file
+     * @return The reader used to parse the xml file, or null if the
+     *         document was empty
      */
-    XMLEventReader getReader() {
-        return eventReader;
+    XMLStreamReader getReader() {
+        return reader;
     }
 
     /**
-     * Abstract method which should implement how the xml should be parsed
+     * Set the table used to share repeated values between records. Each
+     * parser has its own table if not set, so values are only shared
+     * within one document.
+     * @param strings Table to use, e.g. {@link StringTable#shared()}
+     */
+    public void setStringTable(StringTable strings) {
+        this.strings = strings;
+    }
+
+    /**
+     * Abstract method which should implement how the next record in the
+     * xml should be parsed
+     * @return The next record, or null if there are no more records
+     * @throws XMLStreamException If XML Stream encountered error
+     */
+    abstract T parseNext() throws XMLStreamException;
+
+    /**
+     * Parses the rest of the document
      * @return A list containing the desired output
      * @throws XMLStreamException If XML Stream encountered error
      */
-    public abstract List<T> parse() throws XMLStreamException;
+    public List<T> parse() throws XMLStreamException {
+        List<T> records = new ArrayList<>();
+
+        T record;
+        while ((record = parseNext()) != null) {
+            records.add(record);
+        }
+
+        return records;
+    }
 
     /**
-     * Method to ease the parsing of the xml file by mathing element
-     * to action
+     * Iterator over the records, parsed one at a time as they are asked for
+     * @return An iterator which throws {@link UncheckedXMLStreamException}
+     *         if XML Stream encountered error
+     */
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private T next;
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !done) {
+                    try {
+                        next = parseNext();
+                    } catch (XMLStreamException e) {
+                        throw new UncheckedXMLStreamException(e);
+                    }
+                    done = next == null;
+                }
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T record = next;
+                next = null;
+                return record;
+            }
+        };
+    }
+
+    /**
+     * Sequential stream over the records, parsed one at a time as they
+     * are consumed
+     * @return A stream which throws {@link UncheckedXMLStreamException}
+     *         if XML Stream encountered error
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                iterator(), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Move the reader forward to the next start element with the given
+     * name. The reader is left positioned on that start element.
      * @param reader Reader used to process xml file
-     * @param mapElement Map of Element name to appropriate action
-     * @param endElement Name of element to stop at
+     * @param element Name of element to look for
+     * @return True if such an element was found, false if end of document
      * @throws XMLStreamException If XML Stream encountered error
      */
-    void matchElements(XMLEventReader reader,
-                       Map<String, Consumer<String>> mapElement,
-                       String endElement) throws XMLStreamException {
-        matchElements(reader, mapElement, null, endElement);
+    boolean nextElement(XMLStreamReader reader, String element)
+                                                   throws XMLStreamException {
+        if (reader == null) {
+            return false;
+        }
+
+        while (reader.hasNext()) {
+            if (reader.next() == START_ELEMENT && isElement(reader, element)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
      * Method to ease the parsing of the xml file by mathing element
-     * to action
+     * to the field it should be stored in. Elements with bound attributes
+     * have their attributes stored, other bound elements their text.
      * @param reader Reader used to process xml file
-     * @param mapElement Map of Element name to appropriate action
-     * @param mapAttributes Map of list of attributes to appropriate action
+     * @param schema Bindings from element and attribute names to setters
+     * @param target Record to store matched values in
      * @param endElement Name of element to stop at
      * @throws XMLStreamException If XML Stream encountered error
      */
-    void matchElements(XMLEventReader reader,
-                       Map<String, Consumer<String>> mapElement,
-                       Map<String, Consumer<Iterator<Attribute>>> mapAttributes,
+    void matchElements(XMLStreamReader reader, Schema<T> schema, T target,
                        String endElement) throws XMLStreamException {
 
         while (reader.hasNext()) {
-            XMLEvent event = reader.nextEvent();
-
-            if (event.isStartElement()) {
-                StartElement element = event.asStartElement();
+            int event = reader.next();
 
-                if (mapAttributes != null) {
-                    Consumer<Iterator<Attribute>> run = mapAttributes.get(
-                            element.getName().getLocalPart());
+            if (event == START_ELEMENT) {
+                String name = reader.getLocalName();
 
-                    // If there exist an action for these attributes:
-                    if (run != null) {
-                        run.accept(element.getAttributes());
-                        continue;
-                    }
+                // If there exist setters for these attributes:
+                if (matchAttributes(reader, schema, target, name)) {
+                    continue;
                 }
 
-                Consumer<String> run = mapElement.get(
-                        element.getName().getLocalPart());
+                Schema.Setter<T> setter = schema.getElement(name);
 
-                // If there exist an action for this element
-                if (run != null) {
-                    event = reader.nextEvent();
-                    if (event.isCharacters()) {
-                        run.accept(event.asCharacters().getData());
+                // If there exist a setter for this element
+                if (setter != null) {
+                    String text = readText(reader, schema.isCanonical(setter));
+                    if (text != null) {
+                        setter.set(target, text);
                     }
                 }
 
-            } else if (event.isEndElement()) {
-                if (event.asEndElement().getName().getLocalPart()
-                        .equalsIgnoreCase(endElement)) {
+            } else if (event == END_ELEMENT) {
+                if (isElement(reader, endElement)) {
                     break;
                 }
             }
@@ -126,55 +234,114 @@ abstract class Parser<T> {
     }
 
     /**
-     * Check if element match string name
-     * @param event Element event
-     * @param compare Name to compare with
-     * @return True if they math, else false
+     * Store the attributes of the element the reader is positioned on,
+     * according to the schema.
+     * @param reader Reader positioned on a start element
+     * @param schema Bindings from element and attribute names to setters
+     * @param target Record to store matched values in
+     * @param element Name of the element
+     * @return True if the element had bound attributes, else false
      */
-    boolean isElement(StartElement event, String compare) {
-        return event.getName().getLocalPart().equalsIgnoreCase(compare);
+    boolean matchAttributes(XMLStreamReader reader, Schema<T> schema,
+                            T target, String element) {
+        Map<String, Schema.Setter<T>> setters = schema.getAttributes(element);
+        if (setters == null) {
+            return false;
+        }
+
+        for (int i = 0, count = reader.getAttributeCount(); i < count; i++) {
+            Schema.Setter<T> setter =
+                    setters.get(reader.getAttributeLocalName(i));
+            if (setter != null) {
+                String value = reader.getAttributeValue(i);
+                setter.set(target, schema.isCanonical(setter)
+                                   ? strings.canonical(value) : value);
+            }
+        }
+        return true;
     }
 
+    /**
+     * Reads the text directly following the current start element. Stops
+     * at the first element boundary, leaving the reader positioned there.
+     * @param reader Reader positioned on a start element
+     * @return Text content, or null if element has no text before the
+     *         next element boundary
+     * @throws XMLStreamException If XML Stream encountered error
+     */
+    String readText(XMLStreamReader reader) throws XMLStreamException {
+        return readText(reader, false);
+    }
 
     /**
-     * Check if element match string name
-     * @param event Element event
-     * @param compare Name to compare with
-     * @return True if they math, else false
+     * Reads the text directly following the current start element. Stops
+     * at the first element boundary, leaving the reader positioned there.
+     * @param reader Reader positioned on a start element
+     * @param canonical True if text should be looked up in the string
+     *                  table, so that no new string is created if an equal
+     *                  one is already in use
+     * @return Text content, or null if element has no text before the
+     *         next element boundary
+     * @throws XMLStreamException If XML Stream encountered error
      */
-    boolean isElement(EndElement event, String compare) {
-        return event.getName().getLocalPart().equals(compare);
+    String readText(XMLStreamReader reader, boolean canonical)
+                                                   throws XMLStreamException {
+        String text = null;
+        StringBuilder builder = null;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == CHARACTERS || event == CDATA || event == SPACE
+                    || event == ENTITY_REFERENCE) {
+                // Coalesced into one chunk, unless split by a comment
+                if (text == null) {
+                    text = canonical
+                           ? strings.canonical(reader.getTextCharacters(),
+                                               reader.getTextStart(),
+                                               reader.getTextLength())
+                           : reader.getText();
+                } else {
+                    if (builder == null) {
+                        builder = new StringBuilder(text);
+                    }
+                    builder.append(reader.getText());
+                }
+            } else if (event == START_ELEMENT || event == END_ELEMENT) {
+                break;
+            }
+        }
+
+        if (builder == null) {
+            return text;
+        }
+        return canonical ? strings.canonical(builder) : builder.toString();
     }
 
     /**
-     * Check if Attribute math string name
-     * @param event Attribute event
+     * Check if the element the reader is positioned on match string name
+     * @param reader Reader positioned on a start or end element
      * @param compare Name to compare with
      * @return True if they math, else false
      */
-    boolean isAttribute(Attribute event, String compare) {
-        return event.getName().getLocalPart().equalsIgnoreCase(compare);
+    boolean isElement(XMLStreamReader reader, String compare) {
+        return reader.getLocalName().equalsIgnoreCase(compare);
     }
 
     /**
      * Helper method to convert string to int
      */
-    int toInt(String data) {
+    static int toInt(String data) {
         return Integer.parseInt(data);
     }
 
     /**
-     * Helper method to convert string to datetime
+     * Helper method to convert a timestamp to epoch seconds
      * @param data String in form of the ISO standard:
      *             <Year>-<Month>-<Day>T<Hours>:<Minutes>:<Seconds><TimeZone>
      *             E.g. 16-01-23T20:56:11+01
-     * @return A ZonedDateTime witch take the timezone into consideration
+     * @return Seconds since epoch, which take the timezone into consideration
      */
-    ZonedDateTime toDate(String data) {
-        DateTimeFormatter format =
-                DateTimeFormatter.ofPattern("y-M-d'T'H:m:sX");
-
-        return ZonedDateTime.parse(data,
-               format).withZoneSameInstant(ZoneId.systemDefault());
+    static long toEpochSecond(String data) {
+        return Timestamps.parseEpochSecond(data);
     }
 }
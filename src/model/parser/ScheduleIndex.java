@@ -0,0 +1,157 @@
+/*
+ * File: ScheduleIndex.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-18
+ */
+package model.parser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Index of where each <scheduledepisode> element starts and ends in a
+ * buffered XML document, found by scanning the raw bytes without parsing
+ * the XML. Comments and CDATA sections are skipped while scanning.
+ */
+final class ScheduleIndex {
+
+    private static final byte[] START_TAG =
+            "<scheduledepisode".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] END_TAG =
+            "</scheduledepisode>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] COMMENT_START =
+            "<!--".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] COMMENT_END =
+            "-->".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CDATA_START =
+            "<![CDATA[".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CDATA_END =
+            "]]>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TAG_END = {'>'};
+
+    private int[] starts = new int[64];
+    private int[] ends = new int[64];
+    private int count = 0;
+
+    private ScheduleIndex() {}
+
+    /**
+     * Scan a document for <scheduledepisode> elements
+     * @param document UTF-8 encoded XML document
+     * @param from Index to start scanning at
+     * @param to Index to stop scanning at, exclusive
+     * @return Index of the episodes found
+     */
+    static ScheduleIndex scan(byte[] document, int from, int to) {
+        ScheduleIndex index = new ScheduleIndex();
+        int start = -1;
+
+        int i = from;
+        while (i < to) {
+            if (document[i] != '<') {
+                i++;
+            } else if (matches(document, i, to, COMMENT_START)) {
+                i = skipPast(document, i + COMMENT_START.length, to,
+                             COMMENT_END);
+            } else if (matches(document, i, to, CDATA_START)) {
+                i = skipPast(document, i + CDATA_START.length, to,
+                             CDATA_END);
+            } else if (start == -1 && matches(document, i, to, START_TAG)
+                       && isNameEnd(document, i + START_TAG.length, to)) {
+                start = i;
+                i = skipPast(document, i, to, TAG_END);
+                if (document[i - 2] == '/') { // <scheduledepisode/>
+                    index.add(start, i);
+                    start = -1;
+                }
+            } else if (start != -1 && matches(document, i, to, END_TAG)) {
+                i += END_TAG.length;
+                index.add(start, i);
+                start = -1;
+            } else {
+                i++;
+            }
+        }
+
+        index.starts = Arrays.copyOf(index.starts, index.count);
+        index.ends = Arrays.copyOf(index.ends, index.count);
+        return index;
+    }
+
+    /**
+     * Add an episode to the index
+     * @param start Offset of the first byte of the episode
+     * @param end Offset after the last byte of the episode
+     */
+    private void add(int start, int end) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+    }
+
+    /**
+     * @return Number of episodes in the document
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * @param index Index of episode
+     * @return Offset of the first byte of the episodes start tag
+     */
+    int start(int index) {
+        return starts[index];
+    }
+
+    /**
+     * @param index Index of episode
+     * @return Offset after the last byte of the episodes end tag
+     */
+    int end(int index) {
+        return ends[index];
+    }
+
+    private static boolean matches(byte[] document, int at, int to,
+                                   byte[] pattern) {
+        if (to - at < pattern.length) {
+            return false;
+        }
+        for (int i = 0; i < pattern.length; i++) {
+            if (document[at + i] != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Index after the first occurrence of pattern, or to if none
+     */
+    private static int skipPast(byte[] document, int from, int to,
+                                byte[] pattern) {
+        for (int i = from; i < to; i++) {
+            if (matches(document, i, to, pattern)) {
+                return i + pattern.length;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Check that a tag name ends at index, so that e.g. <scheduledepisodes>
+     * is not taken for <scheduledepisode>
+     */
+    private static boolean isNameEnd(byte[] document, int at, int to) {
+        if (at >= to) {
+            return false;
+        }
+        byte b = document[at];
+        return b == '>' || b == '/' || b == ' ' || b == '\t' || b == '\n'
+                || b == '\r';
+    }
+}
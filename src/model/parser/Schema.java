@@ -0,0 +1,120 @@
+/*
+ * File: Schema.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-14
+ */
+package model.parser;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A binding from element and attribute names to the fields of T they
+ * should be stored in. A schema is built once per parser type and then
+ * shared, so parsing a record only needs lookups, no setup. Values which
+ * are repeated across records can be bound as canonical, and are then
+ * looked up in the {@link StringTable} of the parser before being stored.
+ *
+ * This class is based on the builder design pattern.
+ * @param <T> Type of the record the values are stored in
+ */
+final class Schema<T> {
+
+    /**
+     * Stores a parsed value in a record
+     * @param <T> Type of the record
+     */
+    interface Setter<T> {
+        /**
+         * @param target Record to store value in
+         * @param value Value read from the document
+         */
+        void set(T target, String value);
+    }
+
+    private final Map<String, Setter<T>> elements = new HashMap<>();
+    private final Map<String, Map<String, Setter<T>>> attributes =
+                                                              new HashMap<>();
+    private final Set<Setter<T>> canonical =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Bind the text content of an element to a setter
+     * @param element Name of element
+     * @param setter Setter to store text in record
+     * @return This schema
+     */
+    Schema<T> element(String element, Setter<T> setter) {
+        elements.put(element, setter);
+        return this;
+    }
+
+    /**
+     * Bind an attribute of an element to a setter. An element with bound
+     * attributes will not have its text content read.
+     * @param element Name of element
+     * @param attribute Name of attribute on the element
+     * @param setter Setter to store attribute value in record
+     * @return This schema
+     */
+    Schema<T> attribute(String element, String attribute, Setter<T> setter) {
+        attributes.computeIfAbsent(element, name -> new HashMap<>())
+                  .put(attribute, setter);
+        return this;
+    }
+
+    /**
+     * Bind the text content of an element to a setter, where the text is
+     * a repeated value which should be shared between records
+     * @param element Name of element
+     * @param setter Setter to store text in record
+     * @return This schema
+     */
+    Schema<T> canonicalElement(String element, Setter<T> setter) {
+        canonical.add(setter);
+        return element(element, setter);
+    }
+
+    /**
+     * Bind an attribute of an element to a setter, where the value is
+     * a repeated value which should be shared between records
+     * @param element Name of element
+     * @param attribute Name of attribute on the element
+     * @param setter Setter to store attribute value in record
+     * @return This schema
+     */
+    Schema<T> canonicalAttribute(String element, String attribute,
+                                 Setter<T> setter) {
+        canonical.add(setter);
+        return attribute(element, attribute, setter);
+    }
+
+    /**
+     * @param setter A setter of this schema
+     * @return True if the value should be looked up in a StringTable
+     *         before being stored
+     */
+    boolean isCanonical(Setter<T> setter) {
+        return canonical.contains(setter);
+    }
+
+    /**
+     * @param element Name of element
+     * @return Setter for the elements text content, or null if not bound
+     */
+    Setter<T> getElement(String element) {
+        return elements.get(element);
+    }
+
+    /**
+     * @param element Name of element
+     * @return Setters for the elements attributes by attribute name,
+     *         or null if element has no bound attributes
+     */
+    Map<String, Setter<T>> getAttributes(String element) {
+        return attributes.get(element);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * File: StringTable.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-20
+ */
+package model.parser;
+
+/**
+ * Bounded table of canonical strings, used to let repeated values such as
+ * channel and program names share one String instance instead of one per
+ * record. The table is direct mapped: each value has one slot given by its
+ * hash, and a new value simply replaces whatever was in its slot. Lookups
+ * therefore never grow the table, and a value missing from the table only
+ * means that it is not shared.
+ *
+ * Tables can be used from several threads at once without locking. Slots
+ * are written without synchronization, which is safe as strings are
+ * immutable; at worst two equal values both end up in use.
+ */
+public final class StringTable {
+
+    private static final int SHARED_CAPACITY = 4096;
+    private static final StringTable SHARED = new StringTable(SHARED_CAPACITY);
+
+    private final String[] slots;
+    private final int mask;
+
+    /**
+     * @param capacity Maximum number of strings in the table. Rounded up
+     *                 to a power of two
+     */
+    public StringTable(int capacity) {
+        int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        slots = new String[size];
+        mask = size - 1;
+    }
+
+    /**
+     * A table shared by the whole process, for values which should be
+     * shared between parsers, e.g. in tableaux cached for many channels
+     * @return The shared table
+     */
+    public static StringTable shared() {
+        return SHARED;
+    }
+
+    /**
+     * @param value String to look up
+     * @return An equal string already in the table, otherwise value, which
+     *         is then put in the table. Null if value is null
+     */
+    public String canonical(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        int slot = slot(value.hashCode());
+        String existing = slots[slot];
+        if (value.equals(existing)) {
+            return existing;
+        }
+        slots[slot] = value;
+        return value;
+    }
+
+    /**
+     * Same as {@link #canonical(String)}, but only creates a string if
+     * no equal one is in the table
+     * @param chars Characters of the value
+     * @param start Index of first character
+     * @param length Number of characters
+     * @return An equal string from the table, or a new one
+     */
+    public String canonical(char[] chars, int start, int length) {
+        int hash = 0;
+        for (int i = start, end = start + length; i < end; i++) {
+            hash = 31 * hash + chars[i];
+        }
+
+        int slot = slot(hash);
+        String existing = slots[slot];
+        if (existing != null && contentEquals(existing, chars, start, length)) {
+            return existing;
+        }
+        String value = new String(chars, start, length);
+        slots[slot] = value;
+        return value;
+    }
+
+    /**
+     * Same as {@link #canonical(String)}, but only creates a string if
+     * no equal one is in the table
+     * @param chars Characters of the value
+     * @return An equal string from the table, or a new one
+     */
+    public String canonical(CharSequence chars) {
+        int hash = 0;
+        for (int i = 0, length = chars.length(); i < length; i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+
+        int slot = slot(hash);
+        String existing = slots[slot];
+        if (existing != null && existing.contentEquals(chars)) {
+            return existing;
+        }
+        String value = chars.toString();
+        slots[slot] = value;
+        return value;
+    }
+
+    /**
+     * @param hash Hash of a value, as given by String.hashCode()
+     * @return Slot of the value
+     */
+    private int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static boolean contentEquals(String value, char[] chars,
+                                         int start, int length) {
+        if (value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * File: TableauDocument.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-19
+ */
+package model.parser;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A tableau kept as the raw bytes of its XML document, where each episode
+ * can be parsed on its own when needed. Used together with
+ * {@link TableauParser.Projection#SUMMARY} to only decode the heavy fields
+ * (description, urls, program and channel) of the episodes actually used.
+ * Episodes have the same index as in the list returned by TableauParser.
+ */
+public class TableauDocument {
+
+    private static final byte[] EPISODE_START =
+            "<schedule>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EPISODE_END =
+            "</schedule>".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] document;
+    private final ScheduleIndex index;
+
+    /**
+     * @param document UTF-8 encoded XML document. Should not be modified
+     *                 afterwards, as it is not copied.
+     */
+    public TableauDocument(byte[] document) {
+        this.document = document;
+        this.index = ScheduleIndex.scan(document, 0, document.length);
+    }
+
+    /**
+     * @return Number of episodes in the document
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Parses all fields of an episode
+     * @param episodeIndex Index of the episode in the document
+     * @return The episode, or null if there is no episode on index
+     * @throws XMLStreamException If XML Stream encountered error
+     */
+    public Episode parseEpisode(int episodeIndex) throws XMLStreamException {
+        if (episodeIndex < 0 || episodeIndex >= index.size()) {
+            return null;
+        }
+
+        int from = index.start(episodeIndex);
+        int to = index.end(episodeIndex);
+        InputStream episode = new SequenceInputStream(
+                new SequenceInputStream(
+                        new ByteArrayInputStream(EPISODE_START),
+                        new ByteArrayInputStream(document, from, to - from)),
+                new ByteArrayInputStream(EPISODE_END));
+
+        try {
+            return new TableauParser(episode).parseNext();
+        } catch (IOException e) {
+            throw new XMLStreamException(e); // can't happen on a byte array
+        }
+    }
+}
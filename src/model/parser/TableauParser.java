@@ -5,116 +5,156 @@
  */
 package model.parser;
 
-import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.events.Attribute;
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.*;
-import java.util.function.Consumer;
 
 /**
  * ChannelsParser is a specific XML parser for the SR API of tableau's
  */
 public class TableauParser extends Parser<Episode> {
 
-    private List<Episode> episodes;
+    /**
+     * Which fields of the episodes to parse
+     */
+    public enum Projection {
+        /**
+         * All fields
+         */
+        FULL,
+        /**
+         * Only episodeid, title, starttime and endtime. Other fields are
+         * left with their default values. Use {@link TableauDocument} to
+         * get the other fields of an episode when needed.
+         */
+        SUMMARY
+    }
+
+    /**
+     * Where each element of a <scheduledepisode> is stored in an Episode.
+     * Also used for the JSON format, see {@link JsonTableauParser}
+     */
+    static final Schema<Episode> SCHEMA = new Schema<Episode>()
+            .element("episodeid", (e, data) -> e.episodeid = toInt(data))
+            .canonicalElement("title", (e, data) -> e.title = data)
+            .element("starttimeutc",
+                     (e, data) -> e.startEpochSecond = toEpochSecond(data))
+            .element("endtimeutc",
+                     (e, data) -> e.endEpochSecond = toEpochSecond(data))
+            .element("subtitle", (e, data) -> e.subtitle = data)
+            .element("description", (e, data) -> e.description = data)
+            .element("url", (e, data) -> e.url = data)
+            .element("imageurl", (e, data) -> e.imageurl = data)
+            .element("imageurltemplate",
+                     (e, data) -> e.imageurltemplate = data)
+            .attribute("program", "id", (e, data) -> e.programid = toInt(data))
+            .canonicalAttribute("program", "name",
+                                (e, data) -> e.programName = data)
+            .attribute("channel", "id", (e, data) -> e.channelid = toInt(data))
+            .canonicalAttribute("channel", "name",
+                                (e, data) -> e.channelName = data);
+
+    /**
+     * Where the elements needed for listing a <scheduledepisode> are
+     * stored in an Episode, see {@link Projection#SUMMARY}
+     */
+    static final Schema<Episode> SUMMARY_SCHEMA = new Schema<Episode>()
+            .element("episodeid", (e, data) -> e.episodeid = toInt(data))
+            .canonicalElement("title", (e, data) -> e.title = data)
+            .element("starttimeutc",
+                     (e, data) -> e.startEpochSecond = toEpochSecond(data))
+            .element("endtimeutc",
+                     (e, data) -> e.endEpochSecond = toEpochSecond(data));
+
+    private final Schema<Episode> schema;
+    private Episode scratch;
 
     /**
      * {@inheritDoc}
      */
     public TableauParser(InputStream stream) throws IOException, XMLStreamException {
+        this(stream, Projection.FULL);
+    }
+
+    /**
+     * Parse only some of the fields of each episode
+     * @param stream Stream to read as a xml file
+     * @param projection Which fields to parse
+     * @throws IOException If something when wrong when reading inputstream
+     * @throws XMLStreamException Something went wrong with basing
+     *                            XML on inputstream
+     */
+    public TableauParser(InputStream stream, Projection projection)
+                                          throws IOException,
+                                                 XMLStreamException {
         super(stream);
+        schema = projection == Projection.SUMMARY ? SUMMARY_SCHEMA : SCHEMA;
     }
 
     /**
-     * Parses the XML-file according to the SR API.
-     * @return A list containing information about all the episodes
+     * Parses the next <scheduledepisode> in the XML-file according to the SR API.
+     * @return Information about the next episode, or null if there
+     *         are no more episodes
      * @throws XMLStreamException If XML Stream encountered error
      */
     @Override
-    public List<Episode> parse() throws XMLStreamException {
-        XMLEventReader reader = getReader();
-
-        episodes = new ArrayList<>();
-
-        while (reader.hasNext()) {
-            XMLEvent event = reader.nextEvent();
-            if (event.isStartElement()) {
-                if (isElement(event.asStartElement(), "scheduledepisode")) {
-                    episodes.add(parseScheduledEpisode(reader));
-                }
-            }
+    Episode parseNext() throws XMLStreamException {
+        if (nextElement(getReader(), "scheduledepisode")) {
+            return parseScheduledEpisode(getReader());
         }
-
-        return episodes;
+        return null;
     }
 
     /**
-     * Parses a <scheduledepisode> in the XML-file
-     * @param reader XML reader for the file
-     * @return An Episode containing all the episode information
+     * Parses the next <scheduledepisode> straight into a table, without
+     * creating an Episode for it
+     * @param table Table to add the episode last in
+     * @return True if an episode was added, false if there are no more
+     *         episodes
      * @throws XMLStreamException If XML Stream encountered error
      */
-    private Episode parseScheduledEpisode(XMLEventReader reader)
-                                                     throws XMLStreamException {
-
-        Episode episode = new Episode();
-
-        Map<String, Consumer<String>> mapElements = new HashMap<>();
-        Map<String, Consumer<Iterator<Attribute>>> mapAttributes =
-                                                                new HashMap<>();
-
-        mapElements.put("episodeid", data -> episode.episodeid = toInt(data));
-        mapElements.put("title", data -> episode.title = data);
-        mapElements.put("starttimeutc",
-                        data -> episode.starttime = toDate(data));
-        mapElements.put("endtimeutc", data -> episode.endtime = toDate(data));
-        mapElements.put("subtitle", data -> episode.subtitle = data);
-        mapElements.put("description", data -> episode.description = data);
-        mapElements.put("url", data -> episode.url = data);
-        mapElements.put("imageurl", data -> episode.imageurl = data);
-        mapElements.put("imageurltemplate",
-                        data -> episode.imageurltemplate = data);
-
-        mapAttributes.put("program", attrs -> parseProgram(attrs, episode));
-        mapAttributes.put("channel", attrs -> parseChannel(attrs, episode));
-
-        matchElements(reader, mapElements, mapAttributes, "scheduledepisode");
+    public boolean parseNextInto(EpisodeTable table)
+                                                   throws XMLStreamException {
+        if (!nextElement(getReader(), "scheduledepisode")) {
+            return false;
+        }
 
-        return episode;
+        if (scratch == null) {
+            scratch = new Episode();
+        } else {
+            scratch.reset();
+        }
+        matchElements(getReader(), schema, scratch, "scheduledepisode");
+        table.add(scratch);
+        return true;
     }
 
     /**
-     * Parse a <program> elements attributes
-     * @param attributes Attributes to parse
-     * @param episode Episode to add information to
+     * Parses the rest of the XML-file straight into a table
+     * @param table Table to add the episodes last in
+     * @return Number of episodes added
+     * @throws XMLStreamException If XML Stream encountered error
      */
-    private void parseProgram(Iterator<Attribute> attributes, Episode episode) {
-        while (attributes.hasNext()) {
-            Attribute attribute = attributes.next();
-            if (isAttribute(attribute, "id")) {
-                episode.programid = Integer.parseInt(attribute.getValue());
-            } else if (isAttribute(attribute, "name")) {
-                episode.programName = attribute.getValue();
-            }
+    public int parseInto(EpisodeTable table) throws XMLStreamException {
+        int added = 0;
+        while (parseNextInto(table)) {
+            added++;
         }
+        return added;
     }
 
     /**
-     * Parse a <channel> elements attributes
-     * @param attributes Attributes to parse
-     * @param episode Episode to add information to
+     * Parses a <scheduledepisode> in the XML-file
+     * @param reader XML reader for the file
+     * @return An Episode containing all the episode information
+     * @throws XMLStreamException If XML Stream encountered error
      */
-    private void parseChannel(Iterator<Attribute> attributes, Episode episode) {
-        while (attributes.hasNext()) {
-            Attribute attribute = attributes.next();
-            if (isAttribute(attribute, "id")) {
-                episode.channelid = toInt(attribute.getValue());
-            } else if (isAttribute(attribute, "name")) {
-                episode.channelName = attribute.getValue();
-            }
-        }
+    private Episode parseScheduledEpisode(XMLStreamReader reader)
+                                                     throws XMLStreamException {
+
+        Episode episode = new Episode();
+        matchElements(reader, schema, episode, "scheduledepisode");
+        return episode;
     }
 }
@@ -0,0 +1,232 @@
+/*
+ * File: Timestamps.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-15
+ */
+package model.parser;
+
+import java.time.format.DateTimeParseException;
+
+/**
+ * Decoder for the ISO-8601 timestamps used by the SR API, such as
+ * 2012-09-19T04:00:00Z or 2016-01-23T20:56:11+01:00, and the /Date(ms)/
+ * timestamps used in its JSON format. Decodes straight into epoch seconds
+ * without building any formatter or date objects.
+ */
+final class Timestamps {
+
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+    private static final String JSON_DATE_PREFIX = "/Date(";
+    private static final String JSON_DATE_SUFFIX = ")/";
+
+    private Timestamps() {}
+
+    /**
+     * Decode a timestamp on the form
+     * <Year>-<Month>-<Day>T<Hours>:<Minutes>:<Seconds>[.<Fraction>]<TimeZone>
+     * where time zone is Z, +hh, +hhmm or +hh:mm. Numbers do not have to
+     * be zero padded. Fractions of seconds are ignored. Also accepts
+     * /Date(<Milliseconds since epoch>)/.
+     * @param data Timestamp to decode
+     * @return Seconds since 1970-01-01T00:00:00Z
+     * @throws DateTimeParseException If data is not a valid timestamp
+     */
+    static long parseEpochSecond(String data) {
+        if (data.startsWith(JSON_DATE_PREFIX)) {
+            return parseJsonDate(data);
+        }
+
+        int length = data.length();
+
+        long year = number(data, 0, length);
+        long month = number(data, expect(data, position(year), '-'), length);
+        long day = number(data, expect(data, position(month), '-'), length);
+        long hour = number(data, expect(data, position(day), 'T'), length);
+        long minute = number(data, expect(data, position(hour), ':'), length);
+        long second = number(data, expect(data, position(minute), ':'),
+                             length);
+
+        int index = position(second);
+        if (index < length && data.charAt(index) == '.') {
+            index++;
+            while (index < length && isDigit(data.charAt(index))) {
+                index++;
+            }
+        }
+
+        int offset = 0; // seconds east of UTC
+        if (index >= length) {
+            throw invalid(data, index);
+        }
+        char zone = data.charAt(index);
+        if (zone == 'Z') {
+            index++;
+        } else if (zone == '+' || zone == '-') {
+            int sign = zone == '+' ? 1 : -1;
+            int hours = twoDigits(data, index + 1, length);
+            int minutes = 0;
+            index += 3;
+            if (index < length && data.charAt(index) == ':') {
+                index++;
+            }
+            if (index < length) {
+                minutes = twoDigits(data, index, length);
+                index += 2;
+            }
+            if (hours > 18 || minutes > 59) {
+                throw invalid(data, index);
+            }
+            offset = sign * (hours * 3600 + minutes * 60);
+        } else {
+            throw invalid(data, index);
+        }
+
+        if (index != length) {
+            throw invalid(data, index);
+        }
+
+        int y = value(year);
+        int m = value(month);
+        int d = value(day);
+        if (m < 1 || m > 12 || d < 1 || d > lengthOfMonth(y, m)
+                || value(hour) > 23 || value(minute) > 59
+                || value(second) > 59) {
+            throw invalid(data, 0);
+        }
+
+        return daysFromCivil(y, m, d) * SECONDS_PER_DAY
+                + value(hour) * 3600L
+                + value(minute) * 60L
+                + value(second)
+                - offset;
+    }
+
+    /**
+     * Decode a timestamp on the form /Date(<Milliseconds since epoch>)/,
+     * where milliseconds might be negative and followed by an offset which
+     * is ignored, as the milliseconds already are in UTC.
+     * @param data Timestamp to decode
+     * @return Seconds since 1970-01-01T00:00:00Z
+     */
+    private static long parseJsonDate(String data) {
+        int length = data.length();
+        if (!data.endsWith(JSON_DATE_SUFFIX)) {
+            throw invalid(data, length);
+        }
+
+        int index = JSON_DATE_PREFIX.length();
+        int end = length - JSON_DATE_SUFFIX.length();
+        boolean negative = index < end && data.charAt(index) == '-';
+        if (negative) {
+            index++;
+        }
+
+        int from = index;
+        long millis = 0;
+        while (index < end && isDigit(data.charAt(index))) {
+            millis = millis * 10 + (data.charAt(index) - '0');
+            index++;
+        }
+        if (index == from || index - from > 18) {
+            throw invalid(data, index);
+        }
+        if (index < end && data.charAt(index) != '+'
+                && data.charAt(index) != '-') {
+            throw invalid(data, index);
+        }
+
+        return Math.floorDiv(negative ? -millis : millis, 1000);
+    }
+
+    /**
+     * Reads an unsigned decimal number. To stay allocation free the result
+     * is packed as (value << 32 | end index), see {@link #value(long)} and
+     * {@link #position(long)}.
+     * @param data String to read from
+     * @param from Index of first digit
+     * @param length Length of data
+     * @return Packed value and index after last digit
+     */
+    private static long number(String data, int from, int length) {
+        int value = 0;
+        int index = from;
+        while (index < length && isDigit(data.charAt(index))) {
+            value = value * 10 + (data.charAt(index) - '0');
+            index++;
+            if (index - from > 9) {
+                throw invalid(data, index);
+            }
+        }
+        if (index == from) {
+            throw invalid(data, index);
+        }
+        return ((long) value << 32) | index;
+    }
+
+    private static int value(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static int position(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * Reads exactly two digits
+     */
+    private static int twoDigits(String data, int from, int length) {
+        if (from + 1 >= length || !isDigit(data.charAt(from))
+                || !isDigit(data.charAt(from + 1))) {
+            throw invalid(data, from);
+        }
+        return (data.charAt(from) - '0') * 10 + (data.charAt(from + 1) - '0');
+    }
+
+    /**
+     * Checks that a separator is on the given index
+     * @return Index after the separator
+     */
+    private static int expect(String data, int index, char separator) {
+        if (index >= data.length() || data.charAt(index) != separator) {
+            throw invalid(data, index);
+        }
+        return index + 1;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0)
+                               || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4: case 6: case 9: case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Number of days from 1970-01-01 to given date in the proleptic
+     * Gregorian calendar
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5
+                         + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100
+                        + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static DateTimeParseException invalid(String data, int index) {
+        return new DateTimeParseException(
+                "Text '" + data + "' is not a valid timestamp", data, index);
+    }
+}
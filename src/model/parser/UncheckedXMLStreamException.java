@@ -0,0 +1,27 @@
+/*
+ * File: UncheckedXMLStreamException.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-16
+ */
+package model.parser;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Wraps an XMLStreamException where a checked exception can't be thrown,
+ * e.g. from the iterator and stream returned by a parser.
+ */
+public class UncheckedXMLStreamException extends RuntimeException {
+
+    public UncheckedXMLStreamException(XMLStreamException cause) {
+        super(cause);
+    }
+
+    /**
+     * @return The wrapped XMLStreamException
+     */
+    @Override
+    public synchronized XMLStreamException getCause() {
+        return (XMLStreamException) super.getCause();
+    }
+}
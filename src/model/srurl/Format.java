@@ -0,0 +1,27 @@
+/*
+ * File: Format.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-17
+ */
+package model.srurl;
+
+/**
+ * Response formats supported by the SR API
+ */
+public enum Format {
+    XML("xml"),
+    JSON("json");
+
+    private final String parameter;
+
+    Format(String parameter) {
+        this.parameter = parameter;
+    }
+
+    /**
+     * @return Value of the format parameter in the url
+     */
+    String getParameter() {
+        return parameter;
+    }
+}
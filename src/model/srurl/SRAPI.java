@@ -51,6 +51,14 @@ abstract class SRAPI {
         appendParameter("filtervalue", value);
     }
 
+    /**
+     * Set the format of the response. XML is used if no format is set.
+     * @param format Format of the response
+     */
+    public void setFormat(Format format) {
+        appendParameter("format", format.getParameter());
+    }
+
     /**
      * Must be called before adding any parameter. Will add appropriate
      * url character before parameter.
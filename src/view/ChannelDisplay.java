@@ -36,9 +36,7 @@ class ChannelDisplay extends JPanel {
          */
         void onClick(String name, int id);
     }
-    private static final int IMAGE_BUTTON_SIZE = 58;
-
-    private Image defaultImage;
+    private static final int IMAGE_BUTTON_SIZE = RadioUI.CHANNEL_IMAGE_SIZE;
 
     private Image imageButtonShadow;
     private Image refreshImage;
@@ -61,9 +59,6 @@ class ChannelDisplay extends JPanel {
                     "/image_button_shadow.png"));
             refreshImage = ImageIO.read(getClass().getResourceAsStream(
                     "/refresh.png"));
-            defaultImage = new BufferedImage(IMAGE_BUTTON_SIZE,
-                                             IMAGE_BUTTON_SIZE,
-                                             BufferedImage.TYPE_INT_ARGB);
 
         } catch (IOException e) {
             throw new CreationFailedException(e.getMessage());
@@ -82,8 +77,8 @@ class ChannelDisplay extends JPanel {
     public void addMenu(Image image, String name, int id) {
         ImageButton button;
         if (image == null) {
-            drawNameOnImage(name, defaultImage);
-            button = new ImageButton(defaultImage, name, id, onClickListener);
+            button = new ImageButton(nameImage(name), name, id,
+                                     onClickListener);
         } else {
             button = new ImageButton(image, name, id, onClickListener);
         }
@@ -91,6 +86,15 @@ class ChannelDisplay extends JPanel {
         add(button);
     }
 
+    /**
+     * Remove all menu items and the refresh button
+     */
+    public void clear() {
+        removeAll();
+        revalidate();
+        repaint();
+    }
+
     /**
      * Adds a refresh button after the menu items. Should be called after
      * all the menu items have been set
@@ -104,17 +108,22 @@ class ChannelDisplay extends JPanel {
     }
 
     /**
-     * Draw a name on top of the provided image
+     * Create an image with a name drawn on it, to use in place of an image
+     * which couldn't be loaded
      * @param name Name to draw
-     * @param image Image provided, should be blank as otherwise information
-     *              might be overwritten
+     * @return A new image of button size
      */
-    private void drawNameOnImage(String name, Image image) {
+    private Image nameImage(String name) {
+        BufferedImage image = new BufferedImage(IMAGE_BUTTON_SIZE,
+                                                IMAGE_BUTTON_SIZE,
+                                                BufferedImage.TYPE_INT_RGB);
         Graphics graphics = image.getGraphics();
         graphics.setColor(Color.WHITE);
         graphics.fillRect(0, 0, IMAGE_BUTTON_SIZE, IMAGE_BUTTON_SIZE);
         graphics.setColor(Color.BLACK);
         graphics.drawString(name, 10, IMAGE_BUTTON_SIZE/2);
+        graphics.dispose();
+        return image;
     }
 
     /**
@@ -192,16 +201,20 @@ class ChannelDisplay extends JPanel {
         /**
          * Creates a button which will remember the name and id
          * to be used when listener is trigger, i.e. when button is clicked
-         * @param image Image of the button
+         * @param image Image of the button, used as it is if already of
+         *              button size
          * @param name Name of button
          * @param id Id of button
          * @param listener Click listener
          */
         public ImageButton(Image image, String name, int id, OnClick listener) {
             super(new ImageIcon(
-                    image.getScaledInstance(IMAGE_BUTTON_SIZE,
-                                            IMAGE_BUTTON_SIZE,
-                                            SCALE_SMOOTH)));
+                    image.getWidth(null) == IMAGE_BUTTON_SIZE
+                    && image.getHeight(null) == IMAGE_BUTTON_SIZE
+                    ? image
+                    : image.getScaledInstance(IMAGE_BUTTON_SIZE,
+                                              IMAGE_BUTTON_SIZE,
+                                              SCALE_SMOOTH)));
 
             setBorder(BorderFactory.createEmptyBorder());
 
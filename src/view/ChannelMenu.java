@@ -42,6 +42,16 @@ class ChannelMenu extends JMenuBar {
         add(newMenu);
     }
 
+    /**
+     * Remove all menus and their menu items
+     */
+    public void clear() {
+        removeAll();
+        menus.clear();
+        revalidate();
+        repaint();
+    }
+
     /**
      * Add a menu item to the specified menu
      * @param inMenu Name of menu to add menu item to
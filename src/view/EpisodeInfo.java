@@ -8,6 +8,8 @@ package view;
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 
@@ -17,10 +19,11 @@ import java.io.IOException;
 class EpisodeInfo extends JComponent {
 
     private final int MARGIN = 12;
-    private final int EPISODE_IMAGE_SIZE = 110;
+    private final int EPISODE_IMAGE_SIZE = RadioUI.EPISODE_IMAGE_SIZE;
     private final int SIDE_SHADOW_WIDTH = 4;
     private final int TOP_SHADOW_HEIGHT = 2;
     private final int BOTTOM_SHADOW_HEIGHT = 6;
+    private final Color PLACEHOLDER = new Color(228, 234, 235);
 
     private Image backgroundLeft;
     private Image backgroundMiddle;
@@ -30,8 +33,11 @@ class EpisodeInfo extends JComponent {
     private String subtitle = "";
     private String text = "";
     private BufferedImage episodeImage;
+    private boolean imageLoading = false;
 
     private JLabel label;
+    private boolean labelChanged = true; // title, subtitle or text changed
+    private int labelWidth = -1; // width of component label was laid out for
 
     /**
      * Loads images and components needed for displaying
@@ -45,6 +51,14 @@ class EpisodeInfo extends JComponent {
                           MARGIN+TOP_SHADOW_HEIGHT+MARGIN/2);
         add(label, BorderLayout.EAST);
 
+        // text wraps on width, so lay it out again when resized
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                updateLabel();
+            }
+        });
+
         try {
             backgroundLeft = ImageIO.read(getClass()
                     .getResourceAsStream("/info_background_left.png"));
@@ -65,7 +79,9 @@ class EpisodeInfo extends JComponent {
      * @param title If null, and empty string will be used instead
      */
     public void setTitle(String title) {
-        this.title = title == null ? "" : title;
+        String newTitle = title == null ? "" : title;
+        labelChanged |= !newTitle.equals(this.title);
+        this.title = newTitle;
     }
 
     /**
@@ -73,7 +89,9 @@ class EpisodeInfo extends JComponent {
      * @param subtitle If null or empty string, nothing will be shown
      */
     public void setSubtitle(String subtitle) {
-        this.subtitle = subtitle == null ? "" : subtitle;
+        String newSubtitle = subtitle == null ? "" : subtitle;
+        labelChanged |= !newSubtitle.equals(this.subtitle);
+        this.subtitle = newSubtitle;
     }
 
     /**
@@ -81,7 +99,9 @@ class EpisodeInfo extends JComponent {
      * @param text If null, and empty string will be used instead
      */
     public void setText(String text) {
-        this.text = text == null ? "" : text;
+        String newText = text == null ? "" : text;
+        labelChanged |= !newText.equals(this.text);
+        this.text = newText;
     }
 
     /**
@@ -90,26 +110,54 @@ class EpisodeInfo extends JComponent {
      */
     public void setImage(BufferedImage episodeImage) {
         this.episodeImage = episodeImage;
+        imageLoading = false;
+    }
+
+    /**
+     * Show a placeholder where the image will be, until it is set with
+     * {@link #setImage(BufferedImage)}
+     */
+    public void setImageLoading() {
+        episodeImage = null;
+        imageLoading = true;
     }
 
     /**
      * Clears the information about the episode (title, subtitle, text, image)
      */
     public void clear() {
-        title = "";
-        subtitle = "";
-        text = "";
+        setTitle("");
+        setSubtitle("");
+        setText("");
         episodeImage = null;
+        imageLoading = false;
         refresh();
     }
 
     /**
-     * Repaints the component
+     * Repaints the component, and lays out the text again if it has
+     * changed
      */
     public void refresh() {
+        updateLabel();
         repaint();
     }
 
+    /**
+     * Build the html of the label and lay it out, only if title, subtitle,
+     * text or width has changed since last time. Parsing and laying out
+     * the html is expensive, so it is never done while painting.
+     */
+    private void updateLabel() {
+        if (!labelChanged && labelWidth == getWidth()) {
+            return;
+        }
+        label.setText(formatCenteredText());
+        label.setSize(label.getPreferredSize());
+        labelChanged = false;
+        labelWidth = getWidth();
+    }
+
     /**
      * Used to set the maximum size of component
      */
@@ -145,9 +193,6 @@ class EpisodeInfo extends JComponent {
      */
     @Override
     protected void paintComponent(Graphics g) {
-        label.setText(formatCenteredText());
-        label.setSize(label.getPreferredSize());
-
         super.paintComponent(g);
         setSmoothRendering(g);
 
@@ -168,12 +213,25 @@ class EpisodeInfo extends JComponent {
                     getWidth() - (MARGIN+rightWidth),
                     MARGIN, null);
 
-        if (episodeImage != null) {
+        if (episodeImage != null
+                && episodeImage.getWidth() == EPISODE_IMAGE_SIZE
+                && episodeImage.getHeight() == EPISODE_IMAGE_SIZE) {
+            // already prepared in size, a plain copy
+            g.drawImage(episodeImage,
+                        MARGIN+SIDE_SHADOW_WIDTH,
+                        MARGIN+TOP_SHADOW_HEIGHT, null);
+        } else if (episodeImage != null) {
             g.drawImage(episodeImage,
                         MARGIN+SIDE_SHADOW_WIDTH,
                         MARGIN+TOP_SHADOW_HEIGHT,
                         EPISODE_IMAGE_SIZE,
                         EPISODE_IMAGE_SIZE, null);
+        } else if (imageLoading) {
+            g.setColor(PLACEHOLDER);
+            g.fillRect(MARGIN+SIDE_SHADOW_WIDTH,
+                       MARGIN+TOP_SHADOW_HEIGHT,
+                       EPISODE_IMAGE_SIZE,
+                       EPISODE_IMAGE_SIZE);
         }
     }
 
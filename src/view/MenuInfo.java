@@ -5,30 +5,32 @@
  */
 package view;
 
-import java.io.InputStream;
+import java.awt.Image;
 
 /**
  * Helper class to contain information about an menu item
  */
 public class MenuInfo {
 
-    private InputStream image;
+    private Image image;
     private String name;
     private int id;
 
     /**
      * Provide menu item information
-     * @param image Image for the menu item
+     * @param image Image for the menu item, scaled to
+     *              {@link RadioUI#CHANNEL_IMAGE_SIZE}, or null if it
+     *              couldn't be loaded
      * @param name Name of the menu item
      * @param id Id of the menu item
      */
-    public MenuInfo(InputStream image, String name, int id) {
+    public MenuInfo(Image image, String name, int id) {
         this.image = image;
         this.name = name;
         this.id = id;
     }
 
-    public InputStream getImage() {
+    public Image getImage() {
         return image;
     }
 
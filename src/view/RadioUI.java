@@ -5,11 +5,10 @@
  */
 package view;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
-import java.io.IOException;
-import java.io.InputStream;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -23,6 +22,18 @@ import java.util.Map;
  */
 public class RadioUI {
 
+    /**
+     * Width and height in pixels of episode images, which are drawn as
+     * they are if already of this size
+     */
+    public static final int EPISODE_IMAGE_SIZE = 110;
+
+    /**
+     * Width and height in pixels of channel images, which are drawn as
+     * they are if already of this size
+     */
+    public static final int CHANNEL_IMAGE_SIZE = 58;
+
     /**
      * Listener for when an episode has been selected
      */
@@ -67,6 +78,7 @@ public class RadioUI {
     private ChannelDisplay channelDisplay;
     private EpisodeInfo episodeInfo;
     private Tableau tableau;
+    private TableauRow[] tableauRows = new TableauRow[0]; // last handed over
 
     /**
      * This will start the GUI on the Swing thread.
@@ -110,7 +122,8 @@ public class RadioUI {
     }
 
     /**
-     * Set the menus which should be shown in the GUI.
+     * Set the menus which should be shown in the GUI, replacing any
+     * menus already shown.
      * @param menus Names of menus
      * @param dropdowns Dropdowns containing information about each
      *                  menu item, and corresponding to a menu name
@@ -119,6 +132,7 @@ public class RadioUI {
                          List<MenuInfo>> dropdowns) {
 
         SwingUtilities.invokeLater(() -> {
+            channelMenu.clear();
             for (String menu : menus) {
                 channelMenu.addMenu(menu);
             }
@@ -137,19 +151,16 @@ public class RadioUI {
     }
 
     /**
-     * Set spacial menu items which will be shown using an image
+     * Set spacial menu items which will be shown using an image, replacing
+     * any such menu items already shown
      * @param imageMenus Menu items to show
      */
     public void setDisplayMenu(Collection<MenuInfo> imageMenus) {
         SwingUtilities.invokeLater(() -> {
+            channelDisplay.clear();
             for (MenuInfo menu : imageMenus) {
-                try {
-                    channelDisplay.addMenu(ImageIO.read(menu.getImage()),
-                                           menu.getName(),
-                                           menu.getID());
-                } catch (IOException e) {
-                    channelDisplay.addMenu(null, menu.getName(), menu.getID());
-                }
+                channelDisplay.addMenu(menu.getImage(), menu.getName(),
+                                       menu.getID());
             }
             channelDisplay.addRefreshButton();
 
@@ -161,12 +172,65 @@ public class RadioUI {
      * @param episodes Each episode, which will be shown as a row
      */
     public void setTableauContent(Collection<TableauRow> episodes) {
+        TableauRow[] rows = episodes.toArray(new TableauRow[0]);
+        synchronized (this) {
+            tableauRows = rows;
+        }
         SwingUtilities.invokeLater(() -> {
-            tableau.clear();
+            tableau.setEpisodes(rows);
+        });
+    }
+
+    /**
+     * Add content to the end of the Tableau
+     * @param episodes Each episode, which will be shown as a row
+     */
+    public void addTableauContent(Collection<TableauRow> episodes) {
+        TableauRow[] rows = episodes.toArray(new TableauRow[0]);
+        synchronized (this) {
+            TableauRow[] all = Arrays.copyOf(tableauRows,
+                                             tableauRows.length + rows.length);
+            System.arraycopy(rows, 0, all, tableauRows.length, rows.length);
+            tableauRows = all;
+        }
+        SwingUtilities.invokeLater(() -> {
+            tableau.addEpisodes(rows);
+        });
+    }
 
-            for (TableauRow episode : episodes) {
-                tableau.addEpisode(episode);
+    /**
+     * Update content of the Tableau to a new version of it, e.g. when
+     * refreshed. Only rows which have changed are updated, and selection
+     * and scroll are kept. Nothing is done if no row has changed.
+     * @param episodes Each episode, which will be shown as a row
+     * @return True if any row has changed
+     */
+    public boolean updateTableauContent(Collection<TableauRow> episodes) {
+        TableauRow[] rows = episodes.toArray(new TableauRow[0]);
+        TableauDiff diff;
+        synchronized (this) {
+            diff = TableauDiff.between(tableauRows, rows);
+            if (diff.isEmpty()) {
+                return false;
             }
+            tableauRows = rows;
+        }
+        SwingUtilities.invokeLater(() -> {
+            tableau.applyDiff(diff);
+        });
+        return true;
+    }
+
+    /**
+     * Set how far the tableau has aired, e.g. when an episode has ended.
+     * Rows which have aired are shown as disabled, and if the row on air
+     * was selected the selection moves to the new one
+     * @param aired Number of episodes at the top which have aired
+     * @param current Index of episode on air, -1 if none
+     */
+    public void setNowEpisode(int aired, int current) {
+        SwingUtilities.invokeLater(() -> {
+            tableau.setNow(aired, current);
         });
     }
 
@@ -176,27 +240,38 @@ public class RadioUI {
      * @param title Title of episode. Can be NULL
      * @param subtitle Subtitle of episode. Can be NULL
      * @param text A description of the episode. Can be NULL
-     * @param image An image for the episode. Can be NULL
+     * @param image An image for the episode, already decoded. Can be NULL
+     * @param imageLoading True if a placeholder should be shown until the
+     *                     image is set with
+     *                     {@link #setEpisodeImage(BufferedImage)}
      */
     public void setEpisodeContent(String title, String subtitle,
-                                  String text, InputStream image) {
+                                  String text, BufferedImage image,
+                                  boolean imageLoading) {
         SwingUtilities.invokeLater(() -> {
             episodeInfo.setTitle(title);
             episodeInfo.setSubtitle(subtitle);
             episodeInfo.setText(text);
-            if (image != null) {
-                try {
-                    episodeInfo.setImage(ImageIO.read(image));
-                } catch (IOException e) {
-                    episodeInfo.setImage(null);
-                }
+            if (image == null && imageLoading) {
+                episodeInfo.setImageLoading();
             } else {
-                episodeInfo.setImage(null);
+                episodeInfo.setImage(image);
             }
             episodeInfo.refresh();
         });
     }
 
+    /**
+     * Set the image of the episode shown, e.g. when it has loaded
+     * @param image An image for the episode, already decoded. Can be NULL
+     */
+    public void setEpisodeImage(BufferedImage image) {
+        SwingUtilities.invokeLater(() -> {
+            episodeInfo.setImage(image);
+            episodeInfo.refresh();
+        });
+    }
+
     /**
      * Set the title of the window
      * @param title Title
@@ -233,6 +308,9 @@ public class RadioUI {
      * Clear information in about both episode and tableau
      */
     public void clear() {
+        synchronized (this) {
+            tableauRows = new TableauRow[0];
+        }
         SwingUtilities.invokeLater(() -> {
             episodeInfo.clear();
             tableau.clear();
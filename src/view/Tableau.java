@@ -8,11 +8,8 @@ package view;
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
 
 import static javax.swing.ListSelectionModel.SINGLE_SELECTION;
 
@@ -48,13 +45,14 @@ class Tableau extends JPanel {
 
     private JTable table;
     private JScrollPane scroll;
-    private DefaultTableModel model;
+    private TableauModel model;
     private Image shadowTop;
     private Image shadowLeft;
     private Image shadowRight;
     private Image shadowLeftCorner;
     private Image shadowRightCorner;
-    private Map<Integer, Integer> ids = new HashMap<>();
+    private int aired = 0; // rows shown as disabled
+    private int current = -1; // row on air
 
     /**
      * Will load images and set styles for the table
@@ -93,17 +91,7 @@ class Tableau extends JPanel {
         setBackground(new Color(0, 0, 0, 0));
 
 
-        model = new DefaultTableModel(0, 2) {
-            @Override
-            public Class<?> getColumnClass(int columnIndex) {
-                return columnIndex == 0 ? String.class : TableauRow.class;
-            }
-
-            @Override
-            public boolean isCellEditable(int row, int column){
-                return false;
-            }
-        };
+        model = new TableauModel();
 
         table.setModel(model);
         table.setDragEnabled(false);
@@ -141,16 +129,41 @@ class Tableau extends JPanel {
      * Clear all rows of episodes
      */
     public void clear() {
-        model.setRowCount(0);
+        model.clear();
+        aired = 0;
+        current = -1;
+    }
+
+    /**
+     * Replace all rows of episodes at once
+     * @param episodes Rows with episode information, must not be changed
+     *                 afterwards
+     */
+    public void setEpisodes(TableauRow[] episodes) {
+        model.setRows(episodes);
+        aired = 0;
+        current = -1;
     }
 
     /**
-     * Add a row of episode. Will be append last on the table rows
-     * @param episode Row with episode information
+     * Change only the rows which differ from a new version of the
+     * tableau, keeping selection and scroll of the rest
+     * @param diff Difference between rows shown and new version
      */
-    public void addEpisode(TableauRow episode) {
-        ids.put(model.getRowCount(), episode.getID());
-        model.addRow(new Object[] {episode.getTime(), episode});
+    public void applyDiff(TableauDiff diff) {
+        model.apply(diff);
+        if (diff.replace) {
+            aired = 0;
+            current = -1;
+        }
+    }
+
+    /**
+     * Add rows of episodes. Will be appended last on the table rows
+     * @param episodes Rows with episode information
+     */
+    public void addEpisodes(TableauRow[] episodes) {
+        model.addRows(episodes);
     }
 
     /**
@@ -168,6 +181,30 @@ class Tableau extends JPanel {
         }
     }
 
+    /**
+     * Set how far the tableau has aired. Rows which have aired are shown
+     * as disabled, and only rows which change are repainted. If the row
+     * previously on air is selected, the selection follows to the new one.
+     * @param aired Number of rows at the top which have aired
+     * @param current Index of row on air, -1 if none
+     */
+    public void setNow(int aired, int current) {
+        int rows = model.getRowCount();
+        int from = Math.min(this.aired, aired);
+        int to = Math.min(Math.max(this.aired, aired), rows);
+        this.aired = aired;
+        if (from < to) {
+            model.fireTableRowsUpdated(from, to - 1);
+        }
+
+        boolean follow = this.current != -1
+                         && table.getSelectedRow() == this.current;
+        this.current = current;
+        if (follow && current != -1 && current < rows) {
+            setSelected(current);
+        }
+    }
+
     /**
      * Sets a listener which is triggered when a row is selected
      * @param itemSelectListener Listener to listen to event
@@ -182,7 +219,7 @@ class Tableau extends JPanel {
 
                 if (value != null) {
                     String name = value.toString();
-                    int id = ids.get(table.getSelectedRow());
+                    int id = model.getID(table.getSelectedRow());
                     if (itemSelectListener != null) {
                         itemSelectListener.onItemSelect(name,
                                                         table.getSelectedRow(),
@@ -237,14 +274,14 @@ class Tableau extends JPanel {
     /**
      * Helper class for rendering each of the rows
      */
-    private static class CellRenderer extends DefaultTableCellRenderer {
+    private class CellRenderer extends DefaultTableCellRenderer {
         /**
          * {@inheritDoc}
          *
          * Will render each other row a different color. Rows
-         * which are disabled will be rendered with gray text, others
-         * with black. Selected row will have a striking color to discern
-         * it from other rows
+         * which are disabled or have aired will be rendered with gray
+         * text, others with black. Selected row will have a striking
+         * color to discern it from other rows
          */
         @Override
         public Component getTableCellRendererComponent(JTable table,
@@ -255,8 +292,8 @@ class Tableau extends JPanel {
             Color foreground;
 
 
-            TableauRow info = (TableauRow) table.getModel().getValueAt(row, 1);
-            if (info.isEnabled()) {
+            TableauRow info = model.getRow(row);
+            if (info.isEnabled() && row >= aired) {
                 foreground = Color.BLACK;
             } else {
                 foreground = Color.GRAY;
@@ -0,0 +1,107 @@
+/*
+ * File: TableauDiff.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-31
+ */
+package view;
+
+import java.util.Arrays;
+
+/**
+ * The difference between the rows shown in a tableau and a newly loaded
+ * version of it. Rows are matched by episode id and compared by what they
+ * show, see {@link TableauRow#looksLike(TableauRow)}. The difference is
+ * the rows deleted, inserted and updated, so that only those are changed
+ * in the {@link TableauModel}. If the episodes kept are not in the same
+ * order as before, the whole tableau is replaced instead.
+ */
+final class TableauDiff {
+
+    private static final int[] NONE = new int[0];
+
+    final TableauRow[] rows;
+    final int[] deleted; // indexes in old rows, ascending
+    final int[] inserted; // indexes in new rows, ascending
+    final int[] updated; // indexes in new rows, ascending
+    final boolean replace;
+
+    private TableauDiff(TableauRow[] rows, int[] deleted, int[] inserted,
+                        int[] updated, boolean replace) {
+        this.rows = rows;
+        this.deleted = deleted;
+        this.inserted = inserted;
+        this.updated = updated;
+        this.replace = replace;
+    }
+
+    /**
+     * Find the difference between two versions of a tableau
+     * @param old Rows shown
+     * @param rows Rows to show
+     * @return The difference
+     */
+    static TableauDiff between(TableauRow[] old, TableauRow[] rows) {
+        int[] newIDs = sortedIDs(rows);
+        int[] oldIDs = sortedIDs(old);
+
+        int[] deleted = new int[old.length];
+        int deletedCount = 0;
+        int[] kept = new int[old.length]; // old indexes, in order
+        int keptCount = 0;
+        for (int i = 0; i < old.length; i++) {
+            if (Arrays.binarySearch(newIDs, old[i].getID()) < 0) {
+                deleted[deletedCount++] = i;
+            } else {
+                kept[keptCount++] = i;
+            }
+        }
+
+        int[] inserted = new int[rows.length];
+        int insertedCount = 0;
+        int[] updated = new int[rows.length];
+        int updatedCount = 0;
+        int next = 0; // next kept row to match
+        for (int j = 0; j < rows.length; j++) {
+            if (Arrays.binarySearch(oldIDs, rows[j].getID()) < 0) {
+                inserted[insertedCount++] = j;
+                continue;
+            }
+
+            TableauRow before = next < keptCount ? old[kept[next]] : null;
+            if (before == null || before.getID() != rows[j].getID()) {
+                // kept in another order, or ids not unique
+                return new TableauDiff(rows, NONE, NONE, NONE, true);
+            }
+            if (!before.looksLike(rows[j])) {
+                updated[updatedCount++] = j;
+            }
+            next++;
+        }
+        if (next != keptCount) {
+            return new TableauDiff(rows, NONE, NONE, NONE, true);
+        }
+
+        return new TableauDiff(rows,
+                               Arrays.copyOf(deleted, deletedCount),
+                               Arrays.copyOf(inserted, insertedCount),
+                               Arrays.copyOf(updated, updatedCount),
+                               false);
+    }
+
+    /**
+     * @return True if the tableau has not changed
+     */
+    boolean isEmpty() {
+        return !replace && deleted.length == 0 && inserted.length == 0
+               && updated.length == 0;
+    }
+
+    private static int[] sortedIDs(TableauRow[] rows) {
+        int[] ids = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            ids[i] = rows[i].getID();
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+}
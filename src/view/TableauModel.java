@@ -0,0 +1,185 @@
+/*
+ * File: TableauModel.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-30
+ */
+package view;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+
+/**
+ * Table model of the {@link Tableau}, with the time of an episode in the
+ * first column and the row itself in the second. Rows are kept in a plain
+ * array and their ids in an int array, and a whole tableau is swapped in
+ * with one event. Should only be used on the Swing thread.
+ */
+class TableauModel extends AbstractTableModel {
+
+    private static final int COLUMNS = 2;
+    private static final TableauRow[] NO_ROWS = new TableauRow[0];
+
+    private TableauRow[] rows = NO_ROWS;
+    private int[] ids = new int[0];
+    private int size = 0;
+
+    /**
+     * Replace all rows, firing a single event
+     * @param rows Rows of the new tableau, not copied and must not be
+     *             changed afterwards
+     */
+    public void setRows(TableauRow[] rows) {
+        this.rows = rows;
+        this.ids = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            ids[i] = rows[i].getID();
+        }
+        size = rows.length;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Append rows to the end, firing a single event
+     * @param added Rows to append
+     */
+    public void addRows(TableauRow[] added) {
+        if (added.length == 0) {
+            return;
+        }
+
+        int from = size;
+        if (size + added.length > rows.length) {
+            int capacity = Math.max(size + added.length, rows.length * 2);
+            rows = Arrays.copyOf(rows, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+        for (TableauRow row : added) {
+            rows[size] = row;
+            ids[size] = row.getID();
+            size++;
+        }
+        fireTableRowsInserted(from, size - 1);
+    }
+
+    /**
+     * Change the rows which differ from a new version of the tableau,
+     * firing one event for each range of rows deleted, inserted or
+     * updated. Rows not changed keep their selection.
+     * @param diff Difference between the rows and the new version
+     */
+    public void apply(TableauDiff diff) {
+        if (diff.replace) {
+            setRows(diff.rows);
+            return;
+        }
+
+        // delete from the end, so indexes of rows left stay the same
+        int[] deleted = diff.deleted;
+        for (int last = deleted.length - 1; last >= 0; ) {
+            int first = last;
+            while (first > 0 && deleted[first - 1] == deleted[first] - 1) {
+                first--;
+            }
+            int from = deleted[first];
+            int to = deleted[last];
+            System.arraycopy(rows, to + 1, rows, from, size - to - 1);
+            System.arraycopy(ids, to + 1, ids, from, size - to - 1);
+            size -= to - from + 1;
+            Arrays.fill(rows, size, size + to - from + 1, null);
+            fireTableRowsDeleted(from, to);
+            last = first - 1;
+        }
+
+        // rows left are in new order, insert from the start
+        int[] inserted = diff.inserted;
+        for (int first = 0; first < inserted.length; ) {
+            int last = first;
+            while (last + 1 < inserted.length
+                   && inserted[last + 1] == inserted[last] + 1) {
+                last++;
+            }
+            int from = inserted[first];
+            int count = last - first + 1;
+            if (size + count > rows.length) {
+                int capacity = Math.max(size + count, rows.length * 2);
+                rows = Arrays.copyOf(rows, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+            }
+            System.arraycopy(rows, from, rows, from + count, size - from);
+            System.arraycopy(ids, from, ids, from + count, size - from);
+            for (int i = from; i < from + count; i++) {
+                rows[i] = diff.rows[i];
+                ids[i] = diff.rows[i].getID();
+            }
+            size += count;
+            fireTableRowsInserted(from, from + count - 1);
+            first = last + 1;
+        }
+
+        int[] updated = diff.updated;
+        for (int first = 0; first < updated.length; ) {
+            int last = first;
+            while (last + 1 < updated.length
+                   && updated[last + 1] == updated[last] + 1) {
+                last++;
+            }
+            for (int i = updated[first]; i <= updated[last]; i++) {
+                rows[i] = diff.rows[i];
+            }
+            fireTableRowsUpdated(updated[first], updated[last]);
+            first = last + 1;
+        }
+    }
+
+    /**
+     * Remove all rows
+     */
+    public void clear() {
+        setRows(NO_ROWS);
+    }
+
+    /**
+     * @param row Index of row
+     * @return The row on index
+     */
+    public TableauRow getRow(int row) {
+        checkRow(row);
+        return rows[row];
+    }
+
+    /**
+     * @param row Index of row
+     * @return Id of the episode on row
+     */
+    public int getID(int row) {
+        checkRow(row);
+        return ids[row];
+    }
+
+    @Override
+    public int getRowCount() {
+        return size;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS;
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return columnIndex == 0 ? String.class : TableauRow.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        TableauRow value = getRow(row);
+        return column == 0 ? value.getTime() : value;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new ArrayIndexOutOfBoundsException(row);
+        }
+    }
+}
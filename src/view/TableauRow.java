@@ -5,6 +5,7 @@
  */
 package view;
 
+import java.util.Objects;
 
 /**
  * Helper class to contain information about an episode on a tableau row
@@ -14,6 +15,7 @@ public class TableauRow {
     private final String text;
     private final int id;
     private final boolean enabled;
+    private final int fingerprint;
 
     /**
      * Provide episode information
@@ -27,6 +29,9 @@ public class TableauRow {
         this.text = text;
         this.id = id;
         this.enabled = enabled;
+        this.fingerprint = 31 * (31 * this.time.hashCode()
+                                 + (text == null ? 0 : text.hashCode()))
+                           + (enabled ? 1 : 0);
     }
 
 
@@ -45,4 +50,27 @@ public class TableauRow {
     public String getTime() {
         return time;
     }
+
+    /**
+     * Hash of what is shown on the row, i.e. time, text and if enabled.
+     * Rows with different fingerprints look different, but rows with the
+     * same fingerprint may still differ, see {@link #looksLike(TableauRow)}.
+     * @return The fingerprint
+     */
+    public int getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Compares what is shown on two rows. Rows with different fingerprints
+     * are told apart without comparing their texts.
+     * @param other Row to compare with
+     * @return True if both rows show the same time, text and enabled state
+     */
+    public boolean looksLike(TableauRow other) {
+        return fingerprint == other.fingerprint
+               && enabled == other.enabled
+               && time.equals(other.time)
+               && Objects.equals(text, other.text);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+/*
+ * File: AutoUpdaterTest.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-27
+ */
+package controller;
+
+import model.parser.Episode;
+import model.parser.EpisodeTable;
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AutoUpdaterTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Stockholm");
+    private static final long NOON = ZonedDateTime.of(
+            2017, 1, 27, 12, 0, 0, 0, ZONE).toEpochSecond();
+
+    /**
+     * Tableau of one episode
+     */
+    private static EpisodeTable episode(long start, long end) {
+        EpisodeTable table = new EpisodeTable();
+        Episode episode = new Episode();
+        episode.startEpochSecond = start;
+        episode.endEpochSecond = end;
+        table.add(episode);
+        return table;
+    }
+
+    @Test
+    public void shouldUpdateWhenEpisodeHasEnded() {
+        long now = (NOON + 1500) * 1000;
+
+        assertEquals(301 * 1000 + 1000, AutoUpdater.nextDelay(
+                episode(NOON, NOON + 1800), now, ZONE));
+    }
+
+    @Test
+    public void shouldUpdateWhenEpisodeStarts() {
+        long now = (NOON + 300) * 1000;
+
+        assertEquals(300 * 1000 + 1000, AutoUpdater.nextDelay(
+                episode(NOON + 600, NOON + 1200), now, ZONE));
+    }
+
+    @Test
+    public void shouldUpdateWhenDateRollsOver() {
+        long midnight = NOON + 12 * 3600;
+        long now = (midnight - 60) * 1000;
+
+        assertEquals(60 * 1000 + 1000,
+                AutoUpdater.nextDelay(new EpisodeTable(), now, ZONE));
+    }
+
+    @Test
+    public void shouldKeepDelayWithinBounds() {
+        long now = NOON * 1000;
+
+        assertEquals(AutoUpdater.MAX_DELAY,
+                AutoUpdater.nextDelay(new EpisodeTable(), now, ZONE));
+        assertEquals(AutoUpdater.MIN_DELAY, AutoUpdater.nextDelay(
+                episode(NOON + 2, NOON + 1800), now, ZONE));
+    }
+
+    @Test
+    public void shouldBackOffOnFailures() {
+        assertEquals(AutoUpdater.RETRY_DELAY,
+                AutoUpdater.retryDelay(1, 0.9999999), 1);
+        assertEquals(AutoUpdater.RETRY_DELAY * 2,
+                AutoUpdater.retryDelay(2, 0.9999999), 1);
+        assertEquals(AutoUpdater.RETRY_DELAY * 4 / 2,
+                AutoUpdater.retryDelay(3, 0));
+        assertEquals(AutoUpdater.MAX_RETRY_DELAY,
+                AutoUpdater.retryDelay(100, 0.9999999), 1);
+    }
+
+    @Test
+    public void shouldSpreadRetriesOverUpperHalf() {
+        for (double random = 0; random < 1; random += 0.1) {
+            long delay = AutoUpdater.retryDelay(4, random);
+            assertTrue(delay >= AutoUpdater.RETRY_DELAY * 4);
+            assertTrue(delay <= AutoUpdater.RETRY_DELAY * 8);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * File: FetchEngineTest.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-25
+ */
+package model;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FetchEngineTest {
+
+    /**
+     * Stream which blocks on read until closed, like a stalled connection
+     */
+    private static class StalledStream extends InputStream {
+        final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public int read() throws IOException {
+            try {
+                closed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IOException("Stream closed");
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+    }
+
+    @Test
+    public void shouldCompleteWithResult() throws Exception {
+        CompletableFuture<String> future =
+                FetchEngine.shared().submit(fetch -> "P3");
+
+        assertEquals("P3", future.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldCloseStreamWhenCancelled() throws Exception {
+        StalledStream stream = new StalledStream();
+        CountDownLatch reading = new CountDownLatch(1);
+
+        CompletableFuture<Integer> future = FetchEngine.shared().submit(
+                fetch -> {
+                    try (InputStream in = fetch.register(stream)) {
+                        reading.countDown();
+                        return in.read();
+                    }
+                });
+
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+        future.cancel(true);
+
+        assertTrue(stream.closed.await(5, TimeUnit.SECONDS));
+        assertTrue(future.isCancelled());
+    }
+}
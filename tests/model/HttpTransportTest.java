@@ -0,0 +1,193 @@
+/*
+ * File: HttpTransportTest.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-22
+ */
+package model;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HttpTransportTest {
+
+    private static final String CONTENT = "<sr><channels /></sr>";
+    private static HttpServer server;
+    private static ExecutorService executor;
+    private static String base;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/plain", exchange -> {
+            byte[] body = CONTENT.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/gzip", exchange -> {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (OutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+            }
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, compressed.size());
+            try (OutputStream out = exchange.getResponseBody()) {
+                compressed.writeTo(out);
+            }
+        });
+        server.createContext("/etag", exchange -> {
+            String tag = "\"v1\"";
+            exchange.getResponseHeaders().set("ETag", tag);
+            if (tag.equals(exchange.getRequestHeaders()
+                                   .getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = CONTENT.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/stall", exchange -> {
+            // send part of the body, then stop sending
+            exchange.sendResponseHeaders(200, 1000);
+            OutputStream out = exchange.getResponseBody();
+            out.write(new byte[10]);
+            out.flush();
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor); // stall alone
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterClass
+    public static void teardown() {
+        server.stop(0);
+        executor.shutdownNow(); // interrupts the stalled response
+    }
+
+    @Test
+    public void shouldReadPlainResponse() throws Exception {
+        try (InputStream stream = HttpTransport.shared().open(
+                new URL(base + "/plain"))) {
+            assertEquals(CONTENT, new String(stream.readAllBytes(),
+                                             StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void shouldDecompressGzipResponse() throws Exception {
+        try (InputStream stream = HttpTransport.shared().open(
+                new URL(base + "/gzip"))) {
+            assertEquals(CONTENT, new String(stream.readAllBytes(),
+                                             StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void shouldNotReturnContentWithSameETag() throws Exception {
+        HttpTransport transport = HttpTransport.create();
+        URL url = new URL(base + "/etag");
+
+        try (HttpTransport.Conditional content =
+                     transport.openIfModified(url, false)) {
+            assertNotNull(content.getStream());
+            content.commit();
+        }
+        try (HttpTransport.Conditional content =
+                     transport.openIfModified(url, true)) {
+            assertNull(content.getStream());
+        }
+        try (HttpTransport.Conditional content =
+                     transport.openIfModified(url, false)) {
+            assertNotNull(content.getStream());
+        }
+    }
+
+    @Test
+    public void shouldNotReturnContentWithSameHash() throws Exception {
+        HttpTransport transport = HttpTransport.create();
+        URL url = new URL(base + "/plain");
+
+        try (HttpTransport.Conditional content =
+                     transport.openIfModified(url, true)) {
+            assertEquals(CONTENT,
+                         new String(content.getStream().readAllBytes(),
+                                    StandardCharsets.UTF_8));
+            content.commit();
+        }
+        try (HttpTransport.Conditional content =
+                     transport.openIfModified(url, true)) {
+            assertNull(content.getStream());
+        }
+    }
+
+    @Test
+    public void shouldReturnContentAgainIfNotCommitted() throws Exception {
+        HttpTransport transport = HttpTransport.create();
+
+        for (String path : new String[] {"/etag", "/plain"}) {
+            URL url = new URL(base + path);
+            try (HttpTransport.Conditional content =
+                         transport.openIfModified(url, true)) {
+                assertNotNull(content.getStream()); // e.g. failed to parse
+            }
+            try (HttpTransport.Conditional content =
+                         transport.openIfModified(url, true)) {
+                assertNotNull(content.getStream());
+            }
+        }
+    }
+
+    @Test
+    public void shouldTimeOutWhenBodyStalls() throws Exception {
+        HttpTransport transport = HttpTransport.create(Duration.ofMillis(300));
+        long start = System.nanoTime();
+
+        try (InputStream stream = transport.open(new URL(base + "/stall"))) {
+            stream.readAllBytes();
+            fail("Should time out");
+        } catch (HttpTimeoutException e) {
+            /* expected */
+        }
+        assertTrue(System.nanoTime() - start
+                   < TimeUnit.SECONDS.toNanos(3));
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void shouldThrowOnMissing() throws Exception {
+        HttpTransport.shared().open(new URL(base + "/missing"));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * File: ImageLoaderTest.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-28
+ */
+package model;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ImageLoaderTest {
+
+    private static final AtomicInteger requests = new AtomicInteger();
+    private static HttpServer server;
+    private static String base;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB),
+                      "png", png);
+        byte[] image = png.toByteArray();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/image.png", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(200, image.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(image);
+            }
+        });
+        server.createContext("/text", exchange -> {
+            byte[] body = {'n', 'o'};
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterClass
+    public static void teardown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldLoadAndCacheImage() throws Exception {
+        ImageLoader loader = new ImageLoader(1024 * 1024);
+        String url = base + "/image.png?cached";
+
+        BufferedImage image = loader.load(url, 8).get(5, TimeUnit.SECONDS);
+
+        assertEquals(8, image.getWidth());
+        assertEquals(8, image.getHeight());
+        assertSame(image, loader.getCached(url, 8));
+        assertSame(image, loader.load(url, 8).getNow(null));
+        assertNull(loader.getCached(url, 4));
+    }
+
+    @Test
+    public void shouldShareDownloadOfSameImage() throws Exception {
+        ImageLoader loader = new ImageLoader(1024 * 1024);
+        String url = base + "/image.png?shared";
+        int before = requests.get();
+
+        CompletableFuture<BufferedImage> first = loader.load(url, 10);
+        CompletableFuture<BufferedImage> second = loader.load(url, 10);
+
+        assertNotNull(first.get(5, TimeUnit.SECONDS));
+        assertNotNull(second.get(5, TimeUnit.SECONDS));
+        // second either joins the download or finds the image cached
+        assertEquals(1, requests.get() - before);
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void shouldFailOnUnknownFormat() throws Exception {
+        new ImageLoader(1024).load(base + "/text", 10)
+                .get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsed() {
+        // room for two 10x10 images
+        ImageLoader loader = new ImageLoader(2 * 10 * 10 * 4);
+        String a = ImageLoader.key("a", 10);
+        String b = ImageLoader.key("b", 10);
+        String c = ImageLoader.key("c", 10);
+        loader.put(a, new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB));
+        loader.put(b, new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB));
+        loader.getCached("a", 10);
+        loader.put(c, new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB));
+
+        assertNotNull(loader.getCached("a", 10));
+        assertNull(loader.getCached("b", 10));
+        assertNotNull(loader.getCached("c", 10));
+        assertEquals(2 * 10 * 10 * 4, loader.getBytes());
+    }
+
+    @Test
+    public void shouldSubsampleLargeImagesWhenDecoding() throws Exception {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB),
+                      "png", png);
+
+        BufferedImage decoded = ImageLoader.decode(
+                new ByteArrayInputStream(png.toByteArray()), 50);
+        BufferedImage scaled = ImageLoader.scale(decoded, 50);
+
+        // every third pixel, still twice the size shown
+        assertEquals(134, decoded.getWidth());
+        assertEquals(100, decoded.getHeight());
+        assertEquals(50, scaled.getWidth());
+        assertEquals(50, scaled.getHeight());
+    }
+}
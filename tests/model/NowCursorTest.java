@@ -0,0 +1,85 @@
+/*
+ * File: NowCursorTest.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-27
+ */
+package model;
+
+import model.parser.Episode;
+import model.parser.EpisodeTable;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NowCursorTest {
+
+    private static final long START = 1348027200L;
+
+    /**
+     * Tableau of three half hour episodes, with a gap of an hour
+     * before the last one
+     */
+    private static EpisodeTable tableau(long start) {
+        EpisodeTable table = new EpisodeTable();
+        long[] starts = {start, start + 1800, start + 7200};
+        for (int i = 0; i < starts.length; i++) {
+            Episode episode = new Episode();
+            episode.episodeid = i;
+            episode.startEpochSecond = starts[i];
+            episode.endEpochSecond = starts[i] + 1800;
+            table.add(episode);
+        }
+        return table;
+    }
+
+    @Test
+    public void shouldCountAiredEpisodes() {
+        EpisodeTable table = tableau(START);
+
+        assertEquals(0, NowCursor.aired(table, START - 1));
+        assertEquals(0, NowCursor.aired(table, START + 900));
+        assertEquals(1, NowCursor.aired(table, START + 1800 + 900));
+        assertEquals(2, NowCursor.aired(table, START + 5000));
+        assertEquals(3, NowCursor.aired(table, START + 10000));
+    }
+
+    @Test
+    public void shouldFindNextBoundary() {
+        EpisodeTable table = tableau(START);
+
+        assertEquals(START, NowCursor.nextBoundary(table, START - 60));
+        assertEquals(START + 1800,
+                     NowCursor.nextBoundary(table, START + 900));
+        // in the gap, nothing happens until last episode starts
+        assertEquals(START + 7200,
+                     NowCursor.nextBoundary(table, START + 5000));
+        assertEquals(START + 9001,
+                     NowCursor.nextBoundary(table, START + 8000));
+        assertEquals(Long.MAX_VALUE,
+                     NowCursor.nextBoundary(table, START + 10000));
+    }
+
+    @Test
+    public void shouldMoveWhenEpisodeStarts() throws Exception {
+        long now = System.currentTimeMillis() / 1000;
+        NowCursor cursor = new NowCursor();
+        CountDownLatch moved = new CountDownLatch(1);
+        int[] position = new int[2];
+        cursor.setNowChangedListener((channelID, aired, current) -> {
+            position[0] = aired;
+            position[1] = current;
+            moved.countDown();
+        });
+
+        cursor.setEpisodes(164, tableau(now + 1));
+        assertEquals(-1, cursor.getCurrent());
+
+        assertTrue(moved.await(5, TimeUnit.SECONDS));
+        assertEquals(0, position[0]);
+        assertEquals(0, position[1]);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * File: SingleFlightTest.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-26
+ */
+package model;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SingleFlightTest {
+
+    @Test
+    public void shouldShareDownloadOfSameKey() throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+        CompletableFuture<String> download = new CompletableFuture<>();
+        AtomicInteger starts = new AtomicInteger();
+
+        CompletableFuture<String> first = flights.join("P1", () -> {
+            starts.incrementAndGet();
+            return download;
+        });
+        CompletableFuture<String> second = flights.join("P1", () -> {
+            starts.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        download.complete("tableau");
+
+        assertEquals(1, starts.get());
+        assertEquals("tableau", first.get(5, TimeUnit.SECONDS));
+        assertEquals("tableau", second.get(5, TimeUnit.SECONDS));
+        assertFalse(flights.isInFlight("P1"));
+    }
+
+    @Test
+    public void shouldNotShareDownloadOfOtherKey() {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+        AtomicInteger starts = new AtomicInteger();
+
+        flights.join("P1", () -> {
+            starts.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        flights.join("P2", () -> {
+            starts.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        assertEquals(2, starts.get());
+    }
+
+    @Test
+    public void shouldKeepDownloadWhileOtherCallerWaits() {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+        CompletableFuture<String> download = new CompletableFuture<>();
+
+        CompletableFuture<String> first = flights.join("P1", () -> download);
+        CompletableFuture<String> second = flights.join("P1", () -> download);
+        first.cancel(true);
+
+        assertFalse(download.isCancelled());
+        assertTrue(flights.isInFlight("P1"));
+
+        second.cancel(true);
+
+        assertTrue(download.isCancelled());
+        assertFalse(flights.isInFlight("P1"));
+    }
+
+    @Test
+    public void shouldStartNewDownloadWhenDone() {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+        AtomicInteger starts = new AtomicInteger();
+
+        flights.join("P1", () -> {
+            starts.incrementAndGet();
+            return CompletableFuture.completedFuture("old");
+        });
+        flights.join("P1", () -> {
+            starts.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        assertEquals(2, starts.get());
+    }
+
+    @Test
+    public void shouldStartAgainWhenJoiningAsDownloadCompletes()
+                                                           throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+        CompletableFuture<String> download = new CompletableFuture<>();
+        AtomicInteger starts = new AtomicInteger();
+        CompletableFuture<CompletableFuture<String>> again =
+                new CompletableFuture<>();
+
+        flights.join("P1", () -> {
+            starts.incrementAndGet();
+            return download;
+        }).whenComplete((result, error) -> again.complete(
+                // e.g. a refresh as soon as the last update is done
+                flights.join("P1", () -> {
+                    starts.incrementAndGet();
+                    return new CompletableFuture<>();
+                })));
+        download.complete("tableau");
+
+        assertFalse(again.get().isDone());
+        assertEquals(2, starts.get());
+    }
+}
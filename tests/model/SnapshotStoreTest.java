@@ -0,0 +1,111 @@
+/*
+ * File: SnapshotStoreTest.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-29
+ */
+package model;
+
+import model.parser.Channel;
+import model.parser.Episode;
+import model.parser.EpisodeTable;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SnapshotStoreTest {
+
+    private static SnapshotStore.Snapshot snapshot() {
+        List<Channel> channels = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Channel channel = new Channel();
+            channel.id = 160 + i;
+            channel.name = "P" + i;
+            channel.image = "http://sverigesradio.se/p" + i + ".png";
+            channel.color = "31a1bd";
+            channel.channeltype = "Rikskanal";
+            channels.add(channel);
+        }
+
+        EpisodeTable episodes = new EpisodeTable();
+        for (int i = 0; i < 10; i++) {
+            Episode episode = new Episode();
+            episode.episodeid = 1000 + i;
+            episode.title = "Ekot åäö " + i;
+            episode.startEpochSecond = 1348027200L + i * 600;
+            episode.endEpochSecond = episode.startEpochSecond + 600;
+            episode.programid = 83;
+            episode.programName = "Ekot";
+            episode.channelid = 161;
+            episode.channelName = "P1";
+            episode.description = i % 2 == 0 ? "Nyheter" : "";
+            episodes.add(episode);
+        }
+
+        List<SnapshotStore.SavedTableau> tableaux = new ArrayList<>();
+        tableaux.add(new SnapshotStore.SavedTableau(
+                161, LocalDate.of(2017, 1, 29), episodes));
+        return new SnapshotStore.Snapshot(channels, 161, tableaux);
+    }
+
+    @Test
+    public void shouldReadSavedSnapshot() throws Exception {
+        Path file = Files.createTempDirectory("snapshot").resolve("s.bin");
+        SnapshotStore store = new SnapshotStore(file);
+        SnapshotStore.Snapshot saved = snapshot();
+
+        store.save(saved);
+        SnapshotStore.Snapshot loaded = store.load();
+
+        assertEquals(saved.channels, loaded.channels);
+        assertEquals(161, loaded.selectedChannelID);
+        assertEquals(1, loaded.tableaux.size());
+        assertEquals(161, loaded.tableaux.get(0).channelID);
+        assertEquals(LocalDate.of(2017, 1, 29), loaded.tableaux.get(0).date);
+        assertEquals(saved.tableaux.get(0).episodes,
+                     loaded.tableaux.get(0).episodes);
+    }
+
+    @Test
+    public void shouldReplaceLastSnapshot() throws Exception {
+        Path file = Files.createTempDirectory("snapshot").resolve("s.bin");
+        SnapshotStore store = new SnapshotStore(file);
+        store.save(snapshot());
+
+        store.save(new SnapshotStore.Snapshot(snapshot().channels, 162,
+                                              Collections.emptyList()));
+
+        assertEquals(162, store.load().selectedChannelID);
+        assertEquals(0, store.load().tableaux.size());
+    }
+
+    @Test
+    public void shouldIgnoreMissingSnapshot() throws Exception {
+        Path file = Files.createTempDirectory("snapshot").resolve("s.bin");
+
+        assertNull(new SnapshotStore(file).load());
+    }
+
+    @Test
+    public void shouldIgnoreCorruptSnapshot() throws Exception {
+        Path file = Files.createTempDirectory("snapshot").resolve("s.bin");
+        SnapshotStore store = new SnapshotStore(file);
+        store.save(snapshot());
+        byte[] bytes = Files.readAllBytes(file);
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        assertNull(store.load());
+
+        bytes[7] = 99; // other version
+        Files.write(file, bytes);
+        assertNull(store.load());
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * File: TableauCacheTest.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-23
+ */
+package model;
+
+import model.parser.EpisodeTable;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TableauCacheTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2017, 1, 23);
+    private static final long TIME_TO_LIVE = 1000;
+
+    private long now;
+    private TableauCache cache;
+
+    @Before
+    public void setup() {
+        now = 0;
+        cache = new TableauCache(2, TIME_TO_LIVE, () -> now);
+    }
+
+    @Test
+    public void shouldCountHitsAndMisses() {
+        EpisodeTable episodes = new EpisodeTable();
+
+        assertNull(cache.get(164, TODAY));
+        cache.put(164, TODAY, episodes, null, "url");
+
+        assertSame(episodes, cache.get(164, TODAY).episodes);
+        assertNull(cache.get(164, TODAY.plusDays(1)));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void shouldExpireAfterTimeToLive() {
+        EpisodeTable episodes = new EpisodeTable();
+        cache.put(164, TODAY, episodes, null, "url");
+
+        now = TIME_TO_LIVE;
+
+        assertNull(cache.get(164, TODAY));
+        assertSame(episodes, cache.peek(164, TODAY).episodes);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsed() {
+        cache.put(132, TODAY, new EpisodeTable(), null, "p1");
+        cache.put(163, TODAY, new EpisodeTable(), null, "p2");
+        cache.get(132, TODAY);
+        cache.put(164, TODAY, new EpisodeTable(), null, "p3");
+
+        assertEquals(2, cache.size());
+        assertNull(cache.peek(163, TODAY));
+        assertEquals("p1", cache.peek(132, TODAY).source);
+    }
+
+    @Test
+    public void shouldRestoreTableauAsNotFresh() {
+        EpisodeTable episodes = new EpisodeTable();
+        cache.restore(164, TODAY, episodes);
+
+        assertNull(cache.get(164, TODAY));
+        assertSame(episodes, cache.peek(164, TODAY).episodes);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * File: TableauPrefetcherTest.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-24
+ */
+package model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TableauPrefetcherTest {
+
+    private static final String TABLEAU = TableauServer.tableau("A", "B");
+
+    private TableauServer server;
+    private TableauUpdater updater;
+    private TableauPrefetcher prefetcher;
+
+    @Before
+    public void setup() throws Exception {
+        server = new TableauServer();
+        updater = server.updater();
+        prefetcher = new TableauPrefetcher(updater);
+    }
+
+    @After
+    public void teardown() {
+        server.close();
+    }
+
+    @Test
+    public void shouldOrderByMostSelected() {
+        TableauPrefetcher prefetcher = new TableauPrefetcher(
+                new TableauUpdater());
+        prefetcher.onChannelSelected(164, 0);
+        prefetcher.onChannelSelected(132, 0);
+        prefetcher.onChannelSelected(164, 0);
+        prefetcher.onChannelSelected(163, 0);
+        prefetcher.onChannelSelected(164, 0);
+        prefetcher.onChannelSelected(132, 0);
+
+        assertEquals(Arrays.asList(164, 132),
+                     prefetcher.getMostSelected(2));
+        assertEquals(Collections.emptyList(), prefetcher.getMostSelected(0));
+    }
+
+    @Test
+    public void shouldSkipPendingChannelsAndBoundQueue() throws Exception {
+        int running = TableauPrefetcher.MAX_CONCURRENT;
+        int accepted = running + TableauPrefetcher.MAX_QUEUED;
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 1; id <= accepted + 1; id++) {
+            server.serve(id, TABLEAU);
+            server.hold(id);
+            ids.add(id);
+        }
+
+        prefetcher.prefetch(ids.subList(0, running));
+        for (int id = 1; id <= running; id++) {
+            assertTrue(server.awaitRequests(id, 1));
+        }
+        // the running channels are not queued again, leaving room for
+        // all but the last
+        prefetcher.prefetch(ids);
+        server.release();
+
+        assertTrue(server.awaitRequests(accepted, 1));
+        Thread.sleep(200);
+        assertEquals(0, server.requests(accepted + 1));
+    }
+
+    @Test
+    public void shouldWaitWhileUpdating() throws Exception {
+        server.serve(1, TABLEAU);
+        server.serve(2, TABLEAU);
+        CountDownLatch update = server.hold(1);
+        updater.setChannelToLoad(1);
+        updater.update();
+        assertTrue(server.awaitRequests(1, 1));
+
+        prefetcher.prefetch(Collections.singletonList(2));
+        Thread.sleep(300);
+        assertEquals(0, server.requests(2));
+
+        update.countDown();
+        assertTrue(server.awaitRequests(2, 1));
+    }
+
+    @Test
+    public void shouldCancelPrefetchWhenUpdateDownloads() throws Exception {
+        server.serve(1, TABLEAU);
+        server.serve(2, TABLEAU);
+        server.hold(2);
+        prefetcher.prefetch(Collections.singletonList(2));
+        assertTrue(server.awaitRequests(2, 1));
+
+        updater.setChannelToLoad(1);
+        updater.update().get(5, TimeUnit.SECONDS);
+
+        // no longer pending, so it is prefetched again
+        prefetcher.prefetch(Collections.singletonList(2));
+        assertTrue(server.awaitRequests(2, 2));
+    }
+
+    @Test
+    public void shouldShareDownloadWithUpdateOfSameChannel()
+                                                           throws Exception {
+        server.serve(1, TABLEAU);
+        CountDownLatch download = server.hold(1);
+        prefetcher.prefetch(Collections.singletonList(1));
+        assertTrue(server.awaitRequests(1, 1));
+
+        updater.setChannelToLoad(1);
+        CompletableFuture<Void> update = updater.update();
+        Thread.sleep(200);
+        assertFalse(update.isDone());
+
+        download.countDown();
+        update.get(5, TimeUnit.SECONDS);
+        assertEquals(1, server.requests(1));
+    }
+}
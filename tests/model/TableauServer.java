@@ -0,0 +1,189 @@
+/*
+ * File: TableauServer.java
+ * Author: Fredrik Johansson
+ * Date: 2017-02-02
+ */
+package model;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import model.parser.EpisodeTable;
+import model.parser.TableauParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local server of tableaux by channel id, for testing the updater and
+ * prefetcher without the SR API. A channel without a tableau gets an
+ * error response, and requests for a held channel wait until released.
+ */
+final class TableauServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final String base;
+    private final Map<Integer, byte[]> tableaux = new ConcurrentHashMap<>();
+    private final Map<Integer, CountDownLatch> holds =
+            new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicInteger> requests =
+            new ConcurrentHashMap<>();
+
+    TableauServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/tableau/", this::handle);
+        server.setExecutor(executor); // held requests wait alone
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        int id = Integer.parseInt(path.substring(path.lastIndexOf('/') + 1));
+        requests.computeIfAbsent(id, key -> new AtomicInteger())
+                .incrementAndGet();
+
+        CountDownLatch hold = holds.get(id);
+        try {
+            if (hold != null) {
+                hold.await(10, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        byte[] body = tableaux.get(id);
+        if (body == null) {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        } catch (IOException e) {
+            /* result: client gave up on the download */
+        }
+    }
+
+    /**
+     * @param titles Titles of episodes, one half hour episode each
+     * @return Tableau xml with the episodes, numbered from 1
+     */
+    static String tableau(String... titles) {
+        StringBuilder xml = new StringBuilder("<sr><schedule>");
+        for (int i = 0; i < titles.length; i++) {
+            xml.append("<scheduledepisode>")
+               .append("<episodeid>").append(i + 1).append("</episodeid>")
+               .append("<title>").append(titles[i]).append("</title>")
+               .append("<starttimeutc>2017-02-02T")
+               .append(String.format("%02d", 10 + i))
+               .append(":00:00Z</starttimeutc>")
+               .append("<endtimeutc>2017-02-02T")
+               .append(String.format("%02d", 10 + i))
+               .append(":30:00Z</endtimeutc>")
+               .append("<program id=\"1\" name=\"Program\" />")
+               .append("<channel id=\"164\" name=\"P3\" />")
+               .append("</scheduledepisode>");
+        }
+        return xml.append("</schedule></sr>").toString();
+    }
+
+    /**
+     * @param xml Tableau xml
+     * @return The episodes of the tableau, all fields parsed
+     */
+    static EpisodeTable parse(String xml) throws Exception {
+        EpisodeTable episodes = new EpisodeTable();
+        new TableauParser(new ByteArrayInputStream(
+                xml.getBytes(StandardCharsets.UTF_8))).parseInto(episodes);
+        return episodes;
+    }
+
+    /**
+     * Serve a tableau for a channel, replacing any served before
+     */
+    void serve(int id, String xml) {
+        tableaux.put(id, xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Answer requests for the tableau of a channel with an error
+     */
+    void fail(int id) {
+        tableaux.remove(id);
+    }
+
+    /**
+     * Make requests for the tableau of a channel wait until released
+     * @return Latch to count down to release them
+     */
+    CountDownLatch hold(int id) {
+        CountDownLatch hold = new CountDownLatch(1);
+        holds.put(id, hold);
+        return hold;
+    }
+
+    /**
+     * @return Number of requests made for the tableau of a channel
+     */
+    int requests(int id) {
+        AtomicInteger count = requests.get(id);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Wait until a number of requests for the tableau of a channel have
+     * arrived
+     * @return True if they arrived within a few seconds
+     */
+    boolean awaitRequests(int id, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (requests(id) < count) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    /**
+     * @return An updater which downloads its tableaux from this server
+     */
+    TableauUpdater updater() {
+        return new TableauUpdater(HttpTransport.create(),
+                                  (id, date) -> new URL(base + "/tableau/"
+                                                        + id));
+    }
+
+    /**
+     * Release all held requests, and stop holding requests
+     */
+    void release() {
+        for (Integer id : holds.keySet()) {
+            holds.remove(id).countDown();
+        }
+    }
+
+    /**
+     * Release all held requests and stop the server
+     */
+    @Override
+    public void close() {
+        release();
+        server.stop(0);
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * File: TableauUpdaterTest.java
+ * Author: Fredrik Johansson
+ * Date: 2017-02-01
+ */
+package model;
+
+import model.parser.Episode;
+import model.parser.EpisodeTable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class TableauUpdaterTest {
+
+    private static final int CHANNEL = 164;
+    private static final String OLD = TableauServer.tableau("A", "B");
+    private static final String NEW = TableauServer.tableau("A", "C");
+
+    private TableauServer server;
+    private TableauUpdater updater;
+    private final List<EpisodeTable> loaded =
+            Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> failed =
+            Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> batches =
+            Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setup() throws Exception {
+        server = new TableauServer();
+        updater = server.updater();
+        updater.setTableauLoadedListener((channelID, episodes) -> {
+            if (channelID == -1) {
+                failed.add(channelID);
+            } else {
+                loaded.add(episodes);
+            }
+        });
+        updater.setEpisodesParsedListener(
+                (channelID, offset, episodes) -> batches.add(offset));
+        updater.setChannelToLoad(CHANNEL);
+    }
+
+    @After
+    public void teardown() {
+        server.close();
+    }
+
+    /**
+     * Cache a tableau which is no longer fresh, as if restored from disk
+     */
+    private void cacheStale(String xml) throws Exception {
+        updater.restore(new SnapshotStore.SavedTableau(
+                CHANNEL, LocalDate.now(), TableauServer.parse(xml)));
+    }
+
+    private static void await(Future<Void> update)
+                                                          throws Exception {
+        update.get(5, TimeUnit.SECONDS);
+    }
+
+    private static EpisodeTable tableau(int... ids) {
+        EpisodeTable table = new EpisodeTable();
+        for (int id : ids) {
+            Episode episode = new Episode();
+            episode.episodeid = id;
+            episode.title = "Episode " + id;
+            table.add(episode);
+        }
+        return table;
+    }
+
+    @Test
+    public void shouldFindEpisodeDetailsByID() {
+        TableauUpdater updater = new TableauUpdater();
+        EpisodeTable shown = tableau(7, 3, 9);
+
+        // not the last loaded tableau, e.g. still downloading
+        Episode episode = updater.getEpisodeDetails(shown, 9);
+
+        assertEquals(9, episode.episodeid);
+        assertEquals("Episode 9", episode.title);
+    }
+
+    @Test
+    public void shouldNotFindEpisodeOfAnotherTableau() {
+        TableauUpdater updater = new TableauUpdater();
+
+        assertNull(updater.getEpisodeDetails(tableau(7, 3, 9), 2));
+    }
+
+    @Test
+    public void shouldNotWaitWhenNotUpdating() throws Exception {
+        TableauUpdater updater = new TableauUpdater();
+        Thread waiting = new Thread(() -> {
+            try {
+                updater.awaitIdle();
+            } catch (InterruptedException e) {
+                /* result: thread still alive below */
+            }
+        });
+        waiting.start();
+        waiting.join(1000);
+
+        assertFalse(waiting.isAlive());
+    }
+
+    @Test
+    public void shouldLoadTableauInBatches() throws Exception {
+        server.serve(CHANNEL, NEW);
+
+        await(updater.update());
+
+        assertEquals(1, loaded.size());
+        assertEquals(TableauServer.parse(NEW), loaded.get(0));
+        assertEquals(Collections.singletonList(0), batches);
+    }
+
+    @Test
+    public void shouldServeStaleOnceIfUnchanged() throws Exception {
+        cacheStale(OLD);
+        server.serve(CHANNEL, OLD);
+
+        await(updater.update());
+
+        assertEquals(1, server.requests(CHANNEL)); // revalidated
+        assertEquals(1, loaded.size());
+        assertEquals(TableauServer.parse(OLD), loaded.get(0));
+        assertEquals(Collections.emptyList(), batches);
+    }
+
+    @Test
+    public void shouldServeStaleThenChanged() throws Exception {
+        cacheStale(OLD);
+        server.serve(CHANNEL, NEW);
+
+        await(updater.update());
+
+        assertEquals(2, loaded.size());
+        assertEquals(TableauServer.parse(OLD), loaded.get(0));
+        assertEquals(TableauServer.parse(NEW), loaded.get(1));
+        assertEquals(Collections.emptyList(), batches);
+    }
+
+    @Test
+    public void shouldKeepStaleIfRevalidationFails() throws Exception {
+        cacheStale(OLD);
+        server.fail(CHANNEL);
+
+        try {
+            await(updater.update());
+            fail("Update should fail");
+        } catch (ExecutionException e) {
+            /* expected, so that it is retried */
+        }
+
+        assertEquals(1, loaded.size());
+        assertEquals(Collections.emptyList(), failed);
+    }
+
+    @Test
+    public void shouldKeepRestoredTableauWhileOffline() throws Exception {
+        cacheStale(OLD);
+        server.fail(CHANNEL);
+
+        // first update at start, then retries of the auto updater
+        for (int i = 0; i < 3; i++) {
+            try {
+                await(updater.update());
+                fail("Update should fail");
+            } catch (ExecutionException e) {
+                /* expected, so that it is retried */
+            }
+        }
+
+        assertEquals(3, server.requests(CHANNEL));
+        assertEquals(1, loaded.size());
+        assertEquals(Collections.emptyList(), failed);
+    }
+
+    @Test
+    public void shouldReportFailureWithoutCachedTableau() throws Exception {
+        server.fail(CHANNEL);
+
+        try {
+            await(updater.update());
+            fail("Update should fail");
+        } catch (ExecutionException e) {
+            /* expected */
+        }
+
+        assertEquals(Collections.singletonList(-1), failed);
+    }
+
+    @Test
+    public void shouldServeFreshWithoutDownloading() throws Exception {
+        server.serve(CHANNEL, OLD);
+        await(updater.update());
+        updater.setChannelToLoad(CHANNEL);
+
+        await(updater.update());
+
+        assertEquals(1, server.requests(CHANNEL));
+        assertEquals(2, loaded.size());
+        assertSame(loaded.get(0), loaded.get(1));
+    }
+
+    @Test
+    public void shouldDownloadFreshOnRefresh() throws Exception {
+        server.serve(CHANNEL, OLD);
+        await(updater.update());
+
+        await(updater.refresh());
+        updater.setChannelToLoad(CHANNEL);
+        await(updater.update()); // not skipping cache again
+
+        assertEquals(2, server.requests(CHANNEL));
+    }
+}
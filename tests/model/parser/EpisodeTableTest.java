@@ -0,0 +1,113 @@
+/*
+ * File: EpisodeTableTest.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-21
+ */
+package model.parser;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class EpisodeTableTest {
+
+    private static final int EPISODES = 100;
+    private static final List<Episode> episodes = new ArrayList<>();
+    private static EpisodeTable table;
+
+    @BeforeClass
+    public static void setup() {
+        for (int i = 0; i < EPISODES; i++) {
+            Episode episode = new Episode();
+            episode.episodeid = 1000 + i;
+            episode.title = "Program " + i;
+            episode.startEpochSecond = 1348027200L + i * 600;
+            episode.endEpochSecond = episode.startEpochSecond + 600;
+            episode.programid = 83;
+            episode.programName = "Ekot";
+            episode.channelid = 164;
+            episode.channelName = "P3";
+            if (i % 10 == 5) {
+                episode.description = "Description " + i;
+            }
+            episodes.add(episode);
+        }
+        table = EpisodeTable.of(episodes);
+    }
+
+    @Test
+    public void shouldStoreAllFields() {
+        assertEquals(EPISODES, table.size());
+        for (int i = 0; i < EPISODES; i++) {
+            assertEquals(episodes.get(i), table.toEpisode(i));
+        }
+    }
+
+    @Test
+    public void shouldFindIndexOfId() {
+        assertEquals(0, table.indexOf(1000));
+        assertEquals(42, table.indexOf(1042));
+        assertEquals(-1, table.indexOf(1));
+    }
+
+    @Test
+    public void shouldFindIndexAtTime() {
+        long first = episodes.get(0).startEpochSecond;
+
+        assertEquals(-1, table.indexAt(first - 1));
+        assertEquals(0, table.indexAt(first));
+        assertEquals(3, table.indexAt(first + 3 * 600 + 599));
+        assertEquals(EPISODES - 1, table.indexAt(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void shouldEqualTableWithSameEpisodes() {
+        EpisodeTable same = EpisodeTable.of(episodes);
+        assertEquals(table, same);
+        assertEquals(table.hashCode(), same.hashCode());
+
+        List<Episode> changed = new ArrayList<>(episodes);
+        Episode episode = table.toEpisode(7);
+        episode.description = "Changed";
+        changed.set(7, episode);
+        assertNotEquals(table, EpisodeTable.of(changed));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldThrowOutsideTable() {
+        table.getTitle(EPISODES);
+    }
+
+    @Test
+    public void shouldParseIntoTable() throws Exception {
+        StringBuilder xml = new StringBuilder("<sr><schedule>");
+        for (int i = 0; i < 3; i++) {
+            xml.append("<scheduledepisode><episodeid>").append(i)
+               .append("</episodeid><title>Ekonyheter</title>")
+               .append("<starttimeutc>2012-09-19T04:00:00Z</starttimeutc>")
+               .append(i == 1 ? "<description>Nyheter</description>" : "")
+               .append("<channel id=\"164\" name=\"P3\" />")
+               .append("</scheduledepisode>");
+        }
+        xml.append("</schedule></sr>");
+        byte[] document = xml.toString().getBytes(StandardCharsets.UTF_8);
+
+        List<Episode> parsed = new TableauParser(
+                new ByteArrayInputStream(document)).parse();
+        EpisodeTable parsedTable = new EpisodeTable(1);
+        int added = new TableauParser(new ByteArrayInputStream(document))
+                .parseInto(parsedTable);
+
+        assertEquals(3, added);
+        for (int i = 0; i < parsed.size(); i++) {
+            assertEquals(parsed.get(i), parsedTable.toEpisode(i));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * File: JsonChannelsParserTest.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-17
+ */
+package model.parser;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonChannelsParserTest {
+
+    private static final String exampleJSON =
+            "{\n" +
+            "  \"copyright\": \"Copyright Sveriges Radio 2017.\",\n" +
+            "  \"channels\": [\n" +
+            "    {\n" +
+            "      \"image\": \"http://sverigesradio.se/diverse/appdata/isid" +
+                    "or/images/news_images/132/2186746_512_512.jpg\",\n" +
+            "      \"color\": \"31a1bd\",\n" +
+            "      \"tagline\": \"den talade kanalen\",\n" +
+            "      \"siteurl\": \"http://sverigesradio.se/p1\",\n" +
+            "      \"liveaudio\": {\n" +
+            "        \"id\": 132,\n" +
+            "        \"url\": \"http://sverigesradio.se/topsy/direkt/132.m" +
+                    "p3\",\n" +
+            "        \"statkey\": \"webbradio/start/direkt/132_P1\"\n" +
+            "      },\n" +
+            "      \"scheduleurl\": \"http://api.sr.se/api/v2/scheduledepis" +
+                    "odes?channelid=132\",\n" +
+            "      \"channeltype\": \"Rikskanal\",\n" +
+            "      \"xmltvid\": \"p1.sr.se\",\n" +
+            "      \"id\": 132,\n" +
+            "      \"name\": \"P1\"\n" +
+            "    },\n" +
+            "    {\n" +
+            "      \"image\": \"http://static-cdn.sr.se/sida/images/163/21" +
+                    "86754_512_512.jpg?preset=api-default-square\",\n" +
+            "      \"imagetemplate\": \"http://static-cdn.sr.se/sida/image" +
+                    "s/163/2186754_512_512.jpg\",\n" +
+            "      \"color\": \"ff5a00\",\n" +
+            "      \"tagline\": null,\n" +
+            "      \"siteurl\": \"http://sverigesradio.se/p2\",\n" +
+            "      \"channeltype\": \"Rikskanal\",\n" +
+            "      \"id\": 163,\n" +
+            "      \"name\": \"P2\"\n" +
+            "    }\n" +
+            "  ],\n" +
+            "  \"pagination\": {\"page\": 1, \"totalhits\": 2}\n" +
+            "}";
+    private static final List<Channel> realChannels = new ArrayList<>();
+
+    @BeforeClass
+    public static void setup() {
+        Channel c1 = new Channel();
+        Channel c2 = new Channel();
+
+        c1.id = 132;
+        c1.name = "P1";
+        c1.image = "http://sverigesradio.se/diverse/appdata/isidor/images/new" +
+                "s_images/132/2186746_512_512.jpg";
+        c1.color = "31a1bd";
+        c1.tagline = "den talade kanalen";
+        c1.siteurl = "http://sverigesradio.se/p1";
+        c1.channeltype = "Rikskanal";
+
+        c2.id = 163;
+        c2.name = "P2";
+        c2.image = "http://static-cdn.sr.se/sida/images/163/2186754_512" +
+                "_512.jpg?preset=api-default-square";
+        c2.color = "ff5a00";
+        c2.siteurl = "http://sverigesradio.se/p2";
+        c2.channeltype = "Rikskanal";
+
+        realChannels.add(c1);
+        realChannels.add(c2);
+    }
+
+    @Test
+    public void shouldParseOneChannel() throws Exception {
+        InputStream stream = new ByteArrayInputStream(
+                exampleJSON.getBytes(StandardCharsets.UTF_8));
+        JsonChannelsParser parser = new JsonChannelsParser(stream);
+        List<Channel> channels = parser.parse();
+
+        assertEquals(realChannels.get(0), channels.get(0));
+    }
+
+    @Test
+    public void shouldParseMultipleChannels() throws Exception {
+        InputStream stream = new ByteArrayInputStream(
+                exampleJSON.getBytes(StandardCharsets.UTF_8));
+        JsonChannelsParser parser = new JsonChannelsParser(stream);
+        List<Channel> channels = parser.parse();
+
+        assertEquals(realChannels, channels);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * File: JsonTableauParserTest.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-17
+ */
+package model.parser;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonTableauParserTest {
+
+    private static final String exampleJSON =
+            "{\n" +
+            "  \"copyright\": \"Copyright Sveriges Radio 2012. All rights " +
+                    "reserved.\",\n" +
+            "  \"schedule\": [\n" +
+            "    {\n" +
+            "      \"episodeid\": 22441,\n" +
+            "      \"title\": \"Ekonyheter \",\n" +
+            "      \"starttimeutc\": \"/Date(1348027200000)/\",\n" +
+            "      \"endtimeutc\": \"/Date(1348027380000)/\",\n" +
+            "      \"program\": {\"id\": 83, \"name\": \"Ekot\"},\n" +
+            "      \"channel\": {\"id\": 164, \"name\": \"P3\"}\n" +
+            "    },\n" +
+            "    {\n" +
+            "      \"episodeid\": 128761,\n" +
+            "      \"title\": \"P3 Musik\",\n" +
+            "      \"starttimeutc\": \"/Date(1348027500000)/\",\n" +
+            "      \"endtimeutc\": \"/Date(1348029000000)/\",\n" +
+            "      \"program\": {\"id\": 4323, \"name\": \"P3 Musik\"},\n" +
+            "      \"channel\": {\"id\": 164, \"name\": \"P3\"},\n" +
+            "      \"imageurl\": \"http:\\/\\/sverigesradio.se\\/sida\\/image" +
+                    "s\\/4835\\/3650649_2048_1152.jpg?preset=api-default-squ" +
+                    "are\",\n" +
+            "      \"imageurltemplate\": \"http://sverigesradio.se/sida/imag" +
+                    "es/4835/3650649_2048_1152.jpg\"\n" +
+            "    }\n" +
+            "  ],\n" +
+            "  \"pagination\": {\"page\": 1, \"size\": 10, \"totalhits\": 2}\n" +
+            "}";
+    private static final List<Episode> realEpisodes = new ArrayList<>();
+
+    @BeforeClass
+    public static void setup() {
+        Episode e1 = new Episode();
+        Episode e2 = new Episode();
+
+        e1.episodeid = 22441;
+        e1.title = "Ekonyheter ";
+        e1.startEpochSecond = ZonedDateTime.of(2012, 9, 19, 6, 0, 0, 0,
+                                       ZoneId.of("Europe/Stockholm"))
+                                           .toEpochSecond();
+        e1.endEpochSecond = ZonedDateTime.of(2012, 9, 19, 6, 3, 0, 0,
+                                     ZoneId.of("Europe/Stockholm"))
+                                         .toEpochSecond();
+        e1.programid = 83;
+        e1.programName = "Ekot";
+        e1.channelid = 164;
+        e1.channelName = "P3";
+
+        e2.episodeid = 128761;
+        e2.title = "P3 Musik";
+        e2.startEpochSecond = ZonedDateTime.of(2012, 9, 19, 6, 5, 0, 0,
+                                       ZoneId.of("Europe/Stockholm"))
+                                           .toEpochSecond();
+        e2.endEpochSecond = ZonedDateTime.of(2012, 9, 19, 6, 30, 0, 0,
+                                     ZoneId.of("Europe/Stockholm"))
+                                         .toEpochSecond();
+        e2.programid = 4323;
+        e2.programName = "P3 Musik";
+        e2.channelid = 164;
+        e2.channelName = "P3";
+        e2.imageurl = "http://sverigesradio.se/sida/images/4835/3650649_2048_" +
+                "1152.jpg?preset=api-default-square";
+        e2.imageurltemplate = "http://sverigesradio.se/sida/images/4835/36506" +
+                "49_2048_1152.jpg";
+
+        realEpisodes.add(e1);
+        realEpisodes.add(e2);
+    }
+
+    @Test
+    public void shouldParseOneEpisode() throws Exception {
+        InputStream stream = new ByteArrayInputStream(
+                exampleJSON.getBytes(StandardCharsets.UTF_8));
+        JsonTableauParser parser = new JsonTableauParser(stream);
+        List<Episode> episodes = parser.parse();
+
+        assertEquals(realEpisodes.get(0), episodes.get(0));
+    }
+
+    @Test
+    public void shouldParseMultipleEpisodes() throws Exception {
+        InputStream stream = new ByteArrayInputStream(
+                exampleJSON.getBytes(StandardCharsets.UTF_8));
+        JsonTableauParser parser = new JsonTableauParser(stream);
+        List<Episode> episodes = parser.parse();
+
+        assertEquals(realEpisodes, episodes);
+    }
+
+    @Test
+    public void shouldParseEmptyJSON() throws Exception {
+        InputStream stream = new ByteArrayInputStream(
+                "".getBytes(StandardCharsets.UTF_8));
+        JsonTableauParser parser = new JsonTableauParser(stream);
+        List<Episode> episodes = parser.parse();
+
+        assertEquals(new ArrayList<Episode>(), episodes);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * File: ParallelTableauParserTest.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-18
+ */
+package model.parser;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+public class ParallelTableauParserTest {
+
+    private static final int EPISODES = 200;
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+    private static byte[] exampleXML;
+
+    @BeforeClass
+    public static void setup() {
+        StringBuilder xml = new StringBuilder("<sr>\n  <schedule>\n");
+        for (int i = 0; i < EPISODES; i++) {
+            xml.append("    <scheduledepisode>\n")
+               .append("      <episodeid>").append(i).append("</episodeid>\n")
+               .append("      <title>Program ").append(i)
+               .append(" &amp; <![CDATA[<scheduledepisode>]]></title>\n")
+               .append("      <starttimeutc>2012-09-19T04:00:00Z")
+               .append("</starttimeutc>\n")
+               .append("      <endtimeutc>2012-09-19T04:03:00Z")
+               .append("</endtimeutc>\n")
+               .append("      <program id=\"83\" name=\"Ekot\" />\n")
+               .append("      <!-- </scheduledepisode> -->\n")
+               .append("      <channel id=\"164\" name=\"P3\" />\n")
+               .append("    </scheduledepisode>\n");
+        }
+        xml.append("  </schedule>\n</sr>");
+        exampleXML = xml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void shouldParseSameAsSequential() throws Exception {
+        List<Episode> sequential = new TableauParser(
+                new ByteArrayInputStream(exampleXML)).parse();
+        List<Episode> parallel = new ParallelTableauParser(
+                exampleXML, pool, 1024).parse();
+
+        assertEquals(EPISODES, parallel.size());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    public void shouldParseSmallDocumentSequentially() throws Exception {
+        List<Episode> sequential = new TableauParser(
+                new ByteArrayInputStream(exampleXML)).parse();
+        List<Episode> parallel = new ParallelTableauParser(
+                exampleXML, pool).parse();
+
+        assertEquals(sequential, parallel);
+    }
+
+    @Test(expected = XMLStreamException.class)
+    public void shouldThrowOnMalformedChunk() throws Exception {
+        String broken = new String(exampleXML, StandardCharsets.UTF_8)
+                .replaceFirst("</title>", "</titel>");
+        new ParallelTableauParser(broken.getBytes(StandardCharsets.UTF_8),
+                                  pool, 1024).parse();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * File: StringTableTest.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-20
+ */
+package model.parser;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class StringTableTest {
+
+    @Test
+    public void shouldReturnSameInstance() {
+        StringTable table = new StringTable(16);
+        String first = table.canonical(new String("P3"));
+
+        assertSame(first, table.canonical(new String("P3")));
+        assertSame(first, table.canonical("P3".toCharArray(), 0, 2));
+        assertSame(first, table.canonical(new StringBuilder("P3")));
+    }
+
+    @Test
+    public void shouldReplaceOnCollision() {
+        StringTable table = new StringTable(1);
+        String first = table.canonical(new String("P1"));
+        table.canonical(new String("P2"));
+
+        String again = table.canonical(new String("P1"));
+        assertEquals(first, again);
+        assertNotSame(first, again);
+    }
+
+    @Test
+    public void shouldKeepNull() {
+        assertNull(new StringTable(16).canonical((String) null));
+    }
+
+    @Test
+    public void shouldShareRepeatedValuesWhenParsing() throws Exception {
+        StringBuilder xml = new StringBuilder("<sr><schedule>");
+        for (int i = 0; i < 3; i++) {
+            xml.append("<scheduledepisode><episodeid>").append(i)
+               .append("</episodeid><title>Ekonyheter</title>")
+               .append("<program id=\"83\" name=\"Ekot\" />")
+               .append("<channel id=\"164\" name=\"P3\" />")
+               .append("</scheduledepisode>");
+        }
+        xml.append("</schedule></sr>");
+
+        List<Episode> episodes = new TableauParser(new ByteArrayInputStream(
+                xml.toString().getBytes(StandardCharsets.UTF_8))).parse();
+
+        assertSame(episodes.get(0).title, episodes.get(2).title);
+        assertSame(episodes.get(0).programName, episodes.get(2).programName);
+        assertSame(episodes.get(0).channelName, episodes.get(2).channelName);
+    }
+}
@@ -14,9 +14,13 @@ import java.nio.charset.StandardCharsets;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 
 public class TableauParserTest {
 
@@ -56,10 +60,10 @@ public class TableauParserTest {
 
         e1.episodeid = 22441;
         e1.title = "Ekonyheter ";
-        e1.starttime = ZonedDateTime.of(2012, 9, 19, 6, 0, 0, 0,
-                       ZoneId.systemDefault());
-        e1.endtime = ZonedDateTime.of(2012, 9, 19, 6, 3, 0, 0,
-                     ZoneId.systemDefault());
+        e1.startEpochSecond = ZonedDateTime.of(2012, 9, 19, 6, 0, 0, 0,
+                                       ZoneId.systemDefault()).toEpochSecond();
+        e1.endEpochSecond = ZonedDateTime.of(2012, 9, 19, 6, 3, 0, 0,
+                                     ZoneId.systemDefault()).toEpochSecond();
         e1.programid = 83;
         e1.programName = "Ekot";
         e1.channelid = 164;
@@ -67,10 +71,10 @@ public class TableauParserTest {
 
         e2.episodeid = 128761;
         e2.title = "P3 Musik";
-        e2.starttime = ZonedDateTime.of(2012, 9, 19, 6, 5, 0, 0,
-                       ZoneId.systemDefault());
-        e2.endtime = ZonedDateTime.of(2012, 9, 19, 6, 30, 0, 0,
-                     ZoneId.systemDefault());
+        e2.startEpochSecond = ZonedDateTime.of(2012, 9, 19, 6, 5, 0, 0,
+                                       ZoneId.systemDefault()).toEpochSecond();
+        e2.endEpochSecond = ZonedDateTime.of(2012, 9, 19, 6, 30, 0, 0,
+                                     ZoneId.systemDefault()).toEpochSecond();
         e2.programid = 4323;
         e2.programName = "P3 Musik";
         e2.channelid = 164;
@@ -113,10 +117,14 @@ public class TableauParserTest {
         TableauParser parser = new TableauParser(stream);
         List<Episode> episodes = parser.parse();
 
-        assertEquals(realEpisodes.get(0).starttime, episodes.get(0).starttime);
-        assertEquals(realEpisodes.get(0).endtime, episodes.get(0).endtime);
-        assertEquals(realEpisodes.get(1).starttime, episodes.get(1).starttime);
-        assertEquals(realEpisodes.get(1).endtime, episodes.get(1).endtime);
+        assertEquals(realEpisodes.get(0).getStartTime(),
+                     episodes.get(0).getStartTime());
+        assertEquals(realEpisodes.get(0).getEndTime(),
+                     episodes.get(0).getEndTime());
+        assertEquals(realEpisodes.get(1).getStartTime(),
+                     episodes.get(1).getStartTime());
+        assertEquals(realEpisodes.get(1).getEndTime(),
+                     episodes.get(1).getEndTime());
     }
 
     // more specific tests could be added
@@ -141,6 +149,57 @@ public class TableauParserTest {
         assertEquals(realEpisodes, episodes);
     }
 
+    @Test
+    public void shouldIterateEpisodes() throws Exception {
+        InputStream stream = new ByteArrayInputStream(
+                exampleXML.getBytes(StandardCharsets.UTF_8));
+        TableauParser parser = new TableauParser(stream);
+        Iterator<Episode> iterator = parser.iterator();
+
+        assertEquals(realEpisodes.get(0), iterator.next());
+        assertEquals(realEpisodes.get(1), iterator.next());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void shouldStreamEpisodes() throws Exception {
+        InputStream stream = new ByteArrayInputStream(
+                exampleXML.getBytes(StandardCharsets.UTF_8));
+        TableauParser parser = new TableauParser(stream);
+
+        assertEquals(realEpisodes,
+                     parser.stream().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void shouldParseSummary() throws Exception {
+        InputStream stream = new ByteArrayInputStream(
+                exampleXML.getBytes(StandardCharsets.UTF_8));
+        TableauParser parser = new TableauParser(stream,
+                TableauParser.Projection.SUMMARY);
+        Episode episode = parser.parse().get(1);
+
+        assertEquals(realEpisodes.get(1).episodeid, episode.episodeid);
+        assertEquals(realEpisodes.get(1).title, episode.title);
+        assertEquals(realEpisodes.get(1).startEpochSecond,
+                     episode.startEpochSecond);
+        assertEquals(realEpisodes.get(1).endEpochSecond,
+                     episode.endEpochSecond);
+        assertEquals("", episode.programName);
+        assertEquals("", episode.imageurl);
+    }
+
+    @Test
+    public void shouldParseEpisodeFromDocument() throws Exception {
+        TableauDocument document = new TableauDocument(
+                exampleXML.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(2, document.size());
+        assertEquals(realEpisodes.get(0), document.parseEpisode(0));
+        assertEquals(realEpisodes.get(1), document.parseEpisode(1));
+        assertNull(document.parseEpisode(2));
+    }
+
     @Test
     public void shouldParseEmptyXML() throws Exception {
         InputStream stream = new ByteArrayInputStream(
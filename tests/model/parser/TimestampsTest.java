@@ -0,0 +1,60 @@
+/*
+ * File: TimestampsTest.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-15
+ */
+package model.parser;
+
+import org.junit.Test;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+
+import static org.junit.Assert.assertEquals;
+
+public class TimestampsTest {
+
+    @Test
+    public void shouldParseUTC() throws Exception {
+        assertEquals(ZonedDateTime.parse("2012-09-19T04:00:00Z")
+                                  .toEpochSecond(),
+                     Timestamps.parseEpochSecond("2012-09-19T04:00:00Z"));
+    }
+
+    @Test
+    public void shouldParseOffset() throws Exception {
+        long expected = ZonedDateTime.parse("2016-01-23T20:56:11+01:00")
+                                     .toEpochSecond();
+
+        assertEquals(expected,
+                     Timestamps.parseEpochSecond("2016-01-23T20:56:11+01"));
+        assertEquals(expected,
+                     Timestamps.parseEpochSecond("2016-01-23T20:56:11+0100"));
+        assertEquals(expected,
+                     Timestamps.parseEpochSecond("2016-01-23T20:56:11+01:00"));
+    }
+
+    @Test
+    public void shouldParseUnpaddedAndFraction() throws Exception {
+        assertEquals(ZonedDateTime.parse("2016-02-29T02:03:04Z")
+                                  .toEpochSecond(),
+                     Timestamps.parseEpochSecond("2016-2-29T2:3:4.567Z"));
+    }
+
+    @Test
+    public void shouldParseJsonDate() throws Exception {
+        assertEquals(ZonedDateTime.parse("2012-09-19T04:00:00Z")
+                                  .toEpochSecond(),
+                     Timestamps.parseEpochSecond("/Date(1348027200000)/"));
+    }
+
+    @Test(expected = DateTimeParseException.class)
+    public void shouldRejectInvalidDate() throws Exception {
+        Timestamps.parseEpochSecond("2017-02-29T00:00:00Z");
+    }
+
+    @Test(expected = DateTimeParseException.class)
+    public void shouldRejectMissingZone() throws Exception {
+        Timestamps.parseEpochSecond("2017-01-15T12:00:00");
+    }
+}
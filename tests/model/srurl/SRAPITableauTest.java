@@ -44,5 +44,13 @@ public class SRAPITableauTest {
                 SRAPITableau.build());
     }
 
-
+    @Test
+    public void shouldSetFormat() throws Exception {
+        SRAPITableau SRAPITableau = new SRAPITableau(165);
+        SRAPITableau.setFormat(Format.JSON);
+        assertEquals(
+                new URL("http://api.sr.se/api/v2/scheduledepisodes?" +
+                        "channelid=165&format=json"),
+                SRAPITableau.build());
+    }
 }
\ No newline at end of file
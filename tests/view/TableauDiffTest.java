@@ -0,0 +1,92 @@
+/*
+ * File: TableauDiffTest.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-31
+ */
+package view;
+
+import org.junit.Test;
+
+import javax.swing.event.TableModelEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TableauDiffTest {
+
+    private static TableauRow row(int id) {
+        return row(id, "Ekot " + id);
+    }
+
+    private static TableauRow row(int id, String text) {
+        return new TableauRow("12:00 - 13:00", text, id, true);
+    }
+
+    @Test
+    public void shouldBeEmptyWhenUnchanged() {
+        TableauRow[] old = {row(1), row(2), row(3)};
+        TableauRow[] rows = {row(1), row(2), row(3)};
+
+        assertTrue(TableauDiff.between(old, rows).isEmpty());
+    }
+
+    @Test
+    public void shouldFindDeletedInsertedAndUpdated() {
+        TableauRow[] old = {row(1), row(2), row(3), row(4)};
+        TableauRow[] rows = {row(2), row(3, "Ändrad"), row(5), row(4),
+                             row(6)};
+
+        TableauDiff diff = TableauDiff.between(old, rows);
+
+        assertFalse(diff.replace);
+        assertArrayEquals(new int[] {0}, diff.deleted);
+        assertArrayEquals(new int[] {2, 4}, diff.inserted);
+        assertArrayEquals(new int[] {1}, diff.updated);
+    }
+
+    @Test
+    public void shouldUpdateRowsWithSameFingerprint() {
+        // "Aa" and "BB" have the same hash code
+        TableauRow before = row(1, "Aa");
+        TableauRow after = row(1, "BB");
+        assertEquals(before.getFingerprint(), after.getFingerprint());
+
+        TableauDiff diff = TableauDiff.between(new TableauRow[] {before},
+                                               new TableauRow[] {after});
+
+        assertArrayEquals(new int[] {0}, diff.updated);
+    }
+
+    @Test
+    public void shouldReplaceWhenReordered() {
+        TableauRow[] old = {row(1), row(2), row(3)};
+        TableauRow[] rows = {row(1), row(3), row(2)};
+
+        assertTrue(TableauDiff.between(old, rows).replace);
+    }
+
+    @Test
+    public void shouldApplyDiffToModel() {
+        TableauRow[] old = {row(1), row(2), row(3), row(4), row(7)};
+        TableauRow[] rows = {row(0), row(2), row(3, "Ändrad"), row(5),
+                             row(4), row(6)};
+        TableauModel model = new TableauModel();
+        model.setRows(old);
+        List<TableModelEvent> events = new ArrayList<>();
+        model.addTableModelListener(events::add);
+
+        model.apply(TableauDiff.between(old, rows));
+
+        assertEquals(rows.length, model.getRowCount());
+        for (int i = 0; i < rows.length; i++) {
+            assertEquals(rows[i].getID(), model.getID(i));
+            assertEquals(rows[i].toString(), model.getRow(i).toString());
+        }
+        // delete 1 and 7, insert 0, 5 and 6, update 3
+        assertEquals(6, events.size());
+    }
+}
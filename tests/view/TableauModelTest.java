@@ -0,0 +1,69 @@
+/*
+ * File: TableauModelTest.java
+ * Author: Fredrik Johansson
+ * Date: 2017-01-30
+ */
+package view;
+
+import org.junit.Test;
+
+import javax.swing.event.TableModelEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class TableauModelTest {
+
+    private static TableauRow[] rows(int from, int count) {
+        TableauRow[] rows = new TableauRow[count];
+        for (int i = 0; i < count; i++) {
+            rows[i] = new TableauRow("12:00 - 13:00", "Ekot " + (from + i),
+                                     from + i, true);
+        }
+        return rows;
+    }
+
+    @Test
+    public void shouldSwapRowsWithOneEvent() {
+        TableauModel model = new TableauModel();
+        List<TableModelEvent> events = new ArrayList<>();
+        model.addTableModelListener(events::add);
+        TableauRow[] rows = rows(0, 100);
+
+        model.setRows(rows);
+
+        assertEquals(1, events.size());
+        assertEquals(100, model.getRowCount());
+        assertEquals(42, model.getID(42));
+        assertSame(rows[42], model.getValueAt(42, 1));
+        assertEquals(rows[42].getTime(), model.getValueAt(42, 0));
+    }
+
+    @Test
+    public void shouldAppendRowsWithOneEvent() {
+        TableauModel model = new TableauModel();
+        model.setRows(rows(0, 32));
+        List<TableModelEvent> events = new ArrayList<>();
+        model.addTableModelListener(events::add);
+
+        model.addRows(rows(32, 32));
+
+        assertEquals(1, events.size());
+        assertEquals(TableModelEvent.INSERT, events.get(0).getType());
+        assertEquals(32, events.get(0).getFirstRow());
+        assertEquals(63, events.get(0).getLastRow());
+        assertEquals(64, model.getRowCount());
+        assertEquals(63, model.getID(63));
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void shouldNotGetRowOutsideTableau() {
+        TableauModel model = new TableauModel();
+        model.setRows(rows(0, 2));
+        model.clear();
+
+        model.getRow(0);
+    }
+}